@@ -69,6 +69,7 @@ import org.spongepowered.api.world.DimensionType;
 import org.spongepowered.mod.command.CommandSponge;
 import org.spongepowered.mod.command.MinecraftCommandWrapper;
 import org.spongepowered.mod.command.SpongeCommandDisambiguator;
+import org.spongepowered.mod.event.SpongeEventBus;
 import org.spongepowered.mod.event.SpongeEventHooks;
 import org.spongepowered.mod.guice.SpongeGuiceModule;
 import org.spongepowered.mod.interfaces.IMixinServerCommandManager;
@@ -112,6 +113,8 @@ public class SpongeMod extends DummyModContainer implements PluginContainer {
         SpongeMod.instance = this;
         this.game = this.spongeInjector.getInstance(Game.class);
         this.registry = (SpongeGameRegistry) this.game.getRegistry();
+        // Plugin listeners registered until the server is about to start are scanned in parallel and baked once
+        ((SpongeEventBus) this.game.getEventManager()).startBatchRegistration();
         try {
             SimpleCommandService commandService = new SimpleCommandService(this.game, new SpongeCommandDisambiguator(this.game));
             this.game.getServiceManager().setProvider(this, CommandService.class, commandService);
@@ -230,6 +233,7 @@ public class SpongeMod extends DummyModContainer implements PluginContainer {
 
     @Subscribe
     public void onServerAboutToStart(FMLServerAboutToStartEvent e) {
+        ((SpongeEventBus) this.game.getEventManager()).finishBatchRegistration();
         registerAllEnabledWorlds();
     }
 
@@ -56,15 +56,25 @@ import org.spongepowered.api.world.storage.WorldProperties;
 import org.spongepowered.asm.mixin.MixinEnvironment;
 import org.spongepowered.mod.SpongeMod;
 import org.spongepowered.mod.configuration.SpongeConfig;
+import org.spongepowered.mod.event.HandlerTimings;
+import org.spongepowered.mod.event.SpongeEventBus;
 import org.spongepowered.mod.interfaces.IMixinWorld;
 import org.spongepowered.mod.interfaces.IMixinWorldProvider;
 import org.spongepowered.mod.mixin.plugin.CoreMixinPlugin;
+import org.spongepowered.mod.mixin.plugin.entityactivation.WorldTickBudget;
+import org.spongepowered.mod.service.scheduler.MainThreadExecutor;
+import org.spongepowered.mod.service.scheduler.SyncScheduler;
 import org.spongepowered.mod.util.SpongeHooks;
 import org.spongepowered.mod.world.SpongeDimensionType;
+import org.spongepowered.mod.world.storage.RegionRecompressor;
+import org.spongepowered.mod.world.storage.compression.ChunkCodec;
+import org.spongepowered.mod.world.storage.compression.ChunkCodecs;
 
 import java.io.File;
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 
 @NonnullByDefault
 public class CommandSponge {
@@ -85,6 +95,8 @@ public class CommandSponge {
         nonFlagChildren.register(getVersionCommand(mod), "version");
         nonFlagChildren.register(getAuditCommand(), "audit");
         nonFlagChildren.register(getHeapCommand(), "heap");
+        nonFlagChildren.register(getTimingsCommand(mod), "timings");
+        nonFlagChildren.register(getRecompressCommand(mod), "recompress");
         flagChildren.register(getChunksCommand(mod), "chunks");
         flagChildren.register(getConfigCommand(), "config");
         flagChildren.register(getReloadCommand(), "reload"); // TODO: Should these two be subcommands of config, and what is now config be set?
@@ -95,8 +107,10 @@ public class CommandSponge {
                         INDENT, Texts.of(TextColors.GREEN, "chunks"), LONG_INDENT, "Prints chunk data for a specific dimension or world(s)\n",
                         INDENT, Texts.of(TextColors.GREEN, "conf"), LONG_INDENT, "Configure sponge settings\n",
                         INDENT, Texts.of(TextColors.GREEN, "heap"), LONG_INDENT, "Dump live JVM heap\n",
+                        INDENT, Texts.of(TextColors.GREEN, "recompress"), LONG_INDENT, "Recompress the chunks of an unloaded world\n",
                         INDENT, Texts.of(TextColors.GREEN, "reload", LONG_INDENT, "Reloads a global, dimension, or world config\n"),
                         INDENT, Texts.of(TextColors.GREEN, "save"), LONG_INDENT, "Saves a global, dimension, or world config\n",
+                        INDENT, Texts.of(TextColors.GREEN, "timings"), LONG_INDENT, "Prints, reports or resets event handler timings\n",
                         INDENT, Texts.of(TextColors.GREEN, "version"), LONG_INDENT, "Prints current Sponge version\n",
                         INDENT, Texts.of(TextColors.GREEN, "audit"), LONG_INDENT, "Audit mixin classes for implementation"))
                 .setArguments(firstParsing(nonFlagChildren, flags()
@@ -312,6 +326,123 @@ public class CommandSponge {
 
     }
 
+    private static CommandSpec getTimingsCommand(final SpongeMod mod) {
+        return CommandSpec.builder()
+                .setDescription(Texts.of("Print the slowest event handlers, optionally write a report or reset"))
+                .setArguments(optional(firstParsing(literal(Texts.of("report"), "report"), literal(Texts.of("reset"), "reset"))))
+                .setPermission("sponge.command.timings")
+                .setExecutor(new CommandExecutor() {
+                    @Override
+                    public CommandResult execute(CommandSource src, CommandContext args) throws CommandException {
+                        SpongeEventBus eventBus = (SpongeEventBus) mod.getGame().getEventManager();
+                        SyncScheduler scheduler = (SyncScheduler) mod.getGame().getSyncScheduler();
+                        if (args.hasAny("reset")) {
+                            eventBus.resetTimings();
+                            scheduler.resetMetrics();
+                            for (World world : mod.getGame().getServer().getWorlds()) {
+                                WorldTickBudget.get((net.minecraft.world.World) world).resetMetrics();
+                            }
+                            src.sendMessage(Texts.of("Event, scheduler and world tick budget timings reset"));
+                            return CommandResult.builder().successCount(1).build();
+                        }
+
+                        List<HandlerTimings> timings = eventBus.getTimings();
+                        if (args.hasAny("report")) {
+                            File file = new File(new File(new File("."), "timings"),
+                                    "event-timings-" + new SimpleDateFormat("yyyy-MM-dd_HH.mm.ss").format(new Date()) + "-server.json");
+                            src.sendMessage(Texts.of("Writing event timings to: ", file));
+                            SpongeHooks.writeEventTimings(file, timings);
+                            src.sendMessage(Texts.of("Event timings report complete"));
+                            return CommandResult.builder().successCount(1).build();
+                        }
+
+                        Collections.sort(timings, SpongeHooks.HANDLER_TIMINGS_COMPARATOR);
+                        src.sendMessage(Texts.of("Slowest event handlers by total time:"));
+                        for (HandlerTimings handlerTimings : timings.subList(0, Math.min(10, timings.size()))) {
+                            src.sendMessage(Texts.of(INDENT,
+                                    Texts.of(TextColors.GOLD, handlerTimings.getPlugin() == null ? "unknown" : handlerTimings.getPlugin().getId()),
+                                    " ", Texts.of(TextColors.GREEN, handlerTimings.getEventClass().getSimpleName()),
+                                    " ", Texts.of(TextColors.AQUA, handlerTimings.getHandlerName()),
+                                    Texts.of(TextColors.GRAY, " calls: ", handlerTimings.getCalls(),
+                                            " total: ", formatMillis(handlerTimings.getTotalNanos()),
+                                            " max: ", formatMillis(handlerTimings.getMaxNanos()),
+                                            " errors: ", handlerTimings.getExceptions())));
+                        }
+                        src.sendMessage(Texts.of("Scheduler tick budget:"));
+                        src.sendMessage(Texts.of(INDENT, Texts.of(TextColors.GRAY, "ticks over budget: ", scheduler.getOverBudgetTickCount(),
+                                " deferred: ", scheduler.getDeferredTaskCount(),
+                                " late runs: ", scheduler.getSlippedTaskCount(),
+                                " max slip: ", scheduler.getMaxSlipTicks(), " ticks")));
+                        src.sendMessage(Texts.of("World entity tick budget:"));
+                        for (World world : mod.getGame().getServer().getWorlds()) {
+                            WorldTickBudget budget = WorldTickBudget.get((net.minecraft.world.World) world);
+                            src.sendMessage(Texts.of(INDENT, Texts.of(TextColors.GREEN, world.getName()),
+                                    Texts.of(TextColors.GRAY, " ticks over budget: ", budget.getOverBudgetTickCount(),
+                                            " skipped entities: ", budget.getSkippedEntityCount(),
+                                            " skipped tile entities: ", budget.getSkippedTileEntityCount())));
+                        }
+                        return CommandResult.builder().successCount(1).build();
+                    }
+                })
+                .build();
+    }
+
+    private static CommandSpec getRecompressCommand(final SpongeMod mod) {
+        return CommandSpec.builder()
+                .setDescription(Texts.of("Recompress the chunks of an unloaded world, with the configured or a given codec"))
+                .setArguments(seq(world(Texts.of("world"), mod.getGame()), optional(string(Texts.of("codec")))))
+                .setPermission("sponge.command.recompress")
+                .setExecutor(new CommandExecutor() {
+                    @Override
+                    public CommandResult execute(final CommandSource src, CommandContext args) throws CommandException {
+                        final WorldProperties properties = args.<WorldProperties>getOne("world").get();
+                        if (mod.getGame().getServer().getWorld(properties.getUniqueId()).isPresent()) {
+                            throw new CommandException(Texts.of("World ", properties.getWorldName(), " is loaded, unload it to recompress it"));
+                        }
+                        Optional<String> codecName = args.getOne("codec");
+                        ChunkCodec codec = codecName.isPresent() ? ChunkCodecs.getByName(codecName.get(), ChunkCodecs.getLevel())
+                                : ChunkCodecs.getDefault();
+                        if (codec == null) {
+                            throw new CommandException(Texts.of("Unknown codec ", codecName.get(), ", expected deflate, gzip or lz"));
+                        }
+                        String folder = mod.getSpongeRegistry().getWorldFolder(properties.getUniqueId());
+                        File directory = new File(DimensionManager.getCurrentSaveRootDirectory(),
+                                folder == null ? properties.getWorldName() : folder);
+                        if (!new File(directory, "region").isDirectory()) {
+                            throw new CommandException(Texts.of("World ", properties.getWorldName(), " has no region files"));
+                        }
+
+                        final RegionRecompressor recompressor = new RegionRecompressor(directory, codec);
+                        boolean started = recompressor.start(new Runnable() {
+
+                            @Override
+                            public void run() {
+                                MainThreadExecutor.getInstance().execute(new Runnable() {
+
+                                    @Override
+                                    public void run() {
+                                        src.sendMessage(Texts.of("Recompressed ", recompressor.getChunkCount(), " chunks in ",
+                                                recompressor.getRegionCount(), " regions of ", properties.getWorldName(), ", ",
+                                                recompressor.getSizeBefore() / 1024, "KB to ", recompressor.getSizeAfter() / 1024, "KB",
+                                                recompressor.getFailedRegionCount() == 0 ? "" : ", " + recompressor.getFailedRegionCount()
+                                                        + " regions failed, see the log"));
+                                    }
+                                });
+                            }
+                        });
+                        if (!started) {
+                            throw new CommandException(Texts.of("World ", properties.getWorldName(), " is already being recompressed"));
+                        }
+                        src.sendMessage(Texts.of("Recompressing world ", properties.getWorldName(), " with ", codec.getName()));
+                        return CommandResult.builder().successCount(1).build();
+                    }
+                })
+                .build();
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format("%.2fms", nanos / 1.0E6D);
+    }
 
     private static CommandSpec getVersionCommand(final SpongeMod mod) {
         return CommandSpec.builder()
@@ -74,11 +74,30 @@ public class SpongeConfig<T extends SpongeConfig.ConfigBase> {
     public static final String ENTITY_ACTIVATION_RANGE_AQUATIC = "aquatic-activation-range";
     public static final String ENTITY_ACTIVATION_RANGE_AMBIENT = "ambient-activation-range";
     public static final String ENTITY_ACTIVATION_RANGE_MISC = "misc-activation-range";
+    public static final String ENTITY_TICK_TIERS_CREATURE = "creature-tick-tiers";
+    public static final String ENTITY_TICK_TIERS_MONSTER = "monster-tick-tiers";
+    public static final String ENTITY_TICK_TIERS_AQUATIC = "aquatic-tick-tiers";
+    public static final String ENTITY_TICK_TIERS_AMBIENT = "ambient-tick-tiers";
+    public static final String ENTITY_TICK_TIERS_MISC = "misc-tick-tiers";
+    public static final String ENTITY_TICK_TIERS_NEAR_RANGE_MULTIPLIER = "near-range-multiplier";
+    public static final String ENTITY_TICK_TIERS_NEAR_INTERVAL = "near-interval";
+    public static final String ENTITY_TICK_TIERS_FAR_INTERVAL = "far-interval";
+
+    // EVENTS
+    public static final String EVENTS_HANDLER_FACTORY = "handler-factory";
+    public static final String EVENTS_HANDLER_FACTORY_CLASS = "class";
+    public static final String EVENTS_HANDLER_FACTORY_DISPATCHER = "dispatcher";
 
     // GENERAL
     public static final String GENERAL_DISABLE_WARNINGS = "disable-warnings";
     public static final String GENERAL_CHUNK_LOAD_OVERRIDE = "chunk-load-override";
 
+    // IO
+    public static final String IO_CHUNK_COMPRESSION = "chunk-compression";
+    public static final String IO_CHUNK_LOAD_THREADS = "chunk-load-threads";
+    public static final String IO_COMPRESSION_LEVEL = "compression-level";
+    public static final String IO_REGION_FILE_CACHE_SIZE = "region-file-cache-size";
+
     // LOGGING
     public static final String LOGGING_CHUNK_LOAD = "chunk-load";
     public static final String LOGGING_CHUNK_UNLOAD = "chunk-unload";
@@ -91,10 +110,26 @@ public class SpongeConfig<T extends SpongeConfig.ConfigBase> {
 
     // MODULES
     public static final String MODULE_ENTITY_ACTIVATION_RANGE = "entity-activation-range";
+    public static final String MODULE_TILE_ENTITY_ACTIVATION_RANGE = "tile-entity-activation-range";
+
+    // SCHEDULER
+    public static final String SCHEDULER_SYNC_TICK_BUDGET = "sync-tick-budget";
+    public static final String SCHEDULER_ASYNC_MAX_THREADS = "async-max-threads";
+    public static final String SCHEDULER_ASYNC_PLUGIN_CONCURRENCY = "async-plugin-concurrency";
+    public static final String SCHEDULER_MAIN_THREAD_BUDGET = "main-thread-budget";
+
+    // TILE ENTITY ACTIVATION
+    public static final String TILE_ENTITY_ACTIVATION_ENABLED = "enabled";
+    public static final String TILE_ENTITY_ACTIVATION_DEFAULT_RANGE = "default-range";
+    public static final String TILE_ENTITY_ACTIVATION_TICK_INTERVAL = "tick-interval";
+    public static final String TILE_ENTITY_ACTIVATION_RANGES = "ranges";
 
     // WORLD
     public static final String WORLD_INFINITE_WATER_SOURCE = "infinite-water-source";
     public static final String WORLD_FLOWING_LAVA_DECAY = "flowing-lava-decay";
+    public static final String WORLD_MAX_ENTITY_TICK_TIME = "max-entity-tick-time";
+    public static final String WORLD_MAX_TILE_ENTITY_TICK_TIME = "max-tile-entity-tick-time";
+    public static final String WORLD_AUTOSAVE_CHUNKS_PER_TICK = "autosave-chunks-per-tick";
 
     private static final String HEADER = "1.0\n"
             + "\n"
@@ -114,6 +149,7 @@ public class SpongeConfig<T extends SpongeConfig.ConfigBase> {
     private String configName;
     @SuppressWarnings("unused")
     private File file;
+    private volatile int generation;
 
     @SuppressWarnings("unchecked")
     public SpongeConfig(Type type, File file, String modId) {
@@ -167,6 +203,7 @@ public class SpongeConfig<T extends SpongeConfig.ConfigBase> {
             this.root = this.loader.load(ConfigurationOptions.defaults()
                     .setHeader(HEADER));
             this.configBase = this.configMapper.populate(this.root.getNode(this.modId));
+            this.generation++;
         } catch (IOException e) {
             LogManager.getLogger().error(ExceptionUtils.getStackTrace(e));
         } catch (ObjectMappingException e) {
@@ -174,6 +211,10 @@ public class SpongeConfig<T extends SpongeConfig.ConfigBase> {
         }
     }
 
+    public int getGeneration() {
+        return this.generation;
+    }
+
     public CommentedConfigurationNode getRootNode() {
         return this.root.getNode(this.modId);
     }
@@ -209,6 +250,15 @@ public class SpongeConfig<T extends SpongeConfig.ConfigBase> {
         @Setting(value = "modules")
         private ModuleCategory mixins = new ModuleCategory();
 
+        @Setting
+        private EventsCategory events = new EventsCategory();
+
+        @Setting
+        private SchedulerCategory scheduler = new SchedulerCategory();
+
+        @Setting
+        private IoCategory io = new IoCategory();
+
         public SqlCategory getSql() {
             return this.sql;
         }
@@ -220,6 +270,18 @@ public class SpongeConfig<T extends SpongeConfig.ConfigBase> {
         public ModuleCategory getModules() {
             return this.mixins;
         }
+
+        public EventsCategory getEvents() {
+            return this.events;
+        }
+
+        public SchedulerCategory getScheduler() {
+            return this.scheduler;
+        }
+
+        public IoCategory getIo() {
+            return this.io;
+        }
     }
 
     public static class DimensionConfig extends ConfigBase {
@@ -250,6 +312,8 @@ public class SpongeConfig<T extends SpongeConfig.ConfigBase> {
         private EntityCategory entity = new EntityCategory();
         @Setting(value = MODULE_ENTITY_ACTIVATION_RANGE)
         private EntityActivationRangeCategory entityActivationRange = new EntityActivationRangeCategory();
+        @Setting(value = MODULE_TILE_ENTITY_ACTIVATION_RANGE)
+        private TileEntityActivationRangeCategory tileEntityActivationRange = new TileEntityActivationRangeCategory();
         @Setting
         private GeneralCategory general = new GeneralCategory();
         @Setting
@@ -277,6 +341,10 @@ public class SpongeConfig<T extends SpongeConfig.ConfigBase> {
             return this.entityActivationRange;
         }
 
+        public TileEntityActivationRangeCategory getTileEntityActivationRange() {
+            return this.tileEntityActivationRange;
+        }
+
         public GeneralCategory getGeneral() {
             return this.general;
         }
@@ -310,6 +378,122 @@ public class SpongeConfig<T extends SpongeConfig.ConfigBase> {
         }
     }
 
+    @ConfigSerializable
+    public static class EventsCategory extends Category {
+
+        @Setting(value = EVENTS_HANDLER_FACTORY, comment = "How event handlers are generated. 'class' generates one class per handler method,\n"
+                + "'dispatcher' generates one shared class per listener class, which uses less memory with many plugins")
+        private String handlerFactory = EVENTS_HANDLER_FACTORY_CLASS;
+
+        public String getHandlerFactory() {
+            return this.handlerFactory;
+        }
+
+        public void setHandlerFactory(String handlerFactory) {
+            this.handlerFactory = handlerFactory;
+        }
+    }
+
+    @ConfigSerializable
+    public static class SchedulerCategory extends Category {
+
+        @Setting(value = SCHEDULER_SYNC_TICK_BUDGET, comment = "Max time in milliseconds synchronous tasks may run each tick. Tasks that do not fit\n"
+                + "are carried over to the next tick in order. Set to 0 to disable")
+        private int syncTickBudget = 0;
+
+        @Setting(value = SCHEDULER_ASYNC_MAX_THREADS, comment = "Max number of threads running asynchronous tasks")
+        private int asyncMaxThreads = 8;
+
+        @Setting(value = SCHEDULER_ASYNC_PLUGIN_CONCURRENCY,
+                comment = "Max number of asynchronous tasks a single plugin may run at once. Set to 0 to disable")
+        private int asyncPluginConcurrency = 4;
+
+        @Setting(value = SCHEDULER_MAIN_THREAD_BUDGET, comment = "Max time in milliseconds spent each tick running work handed to the main thread\n"
+                + "by other threads. Work that does not fit runs on the next tick. Set to 0 to disable")
+        private int mainThreadBudget = 0;
+
+        public int getSyncTickBudget() {
+            return this.syncTickBudget;
+        }
+
+        public void setSyncTickBudget(int syncTickBudget) {
+            this.syncTickBudget = syncTickBudget;
+        }
+
+        public int getAsyncMaxThreads() {
+            return this.asyncMaxThreads;
+        }
+
+        public void setAsyncMaxThreads(int asyncMaxThreads) {
+            this.asyncMaxThreads = asyncMaxThreads;
+        }
+
+        public int getAsyncPluginConcurrency() {
+            return this.asyncPluginConcurrency;
+        }
+
+        public void setAsyncPluginConcurrency(int asyncPluginConcurrency) {
+            this.asyncPluginConcurrency = asyncPluginConcurrency;
+        }
+
+        public int getMainThreadBudget() {
+            return this.mainThreadBudget;
+        }
+
+        public void setMainThreadBudget(int mainThreadBudget) {
+            this.mainThreadBudget = mainThreadBudget;
+        }
+    }
+
+    @ConfigSerializable
+    public static class IoCategory extends Category {
+
+        @Setting(value = IO_CHUNK_LOAD_THREADS, comment = "Number of threads reading and decompressing chunks loaded asynchronously")
+        private int chunkLoadThreads = 2;
+
+        @Setting(value = IO_CHUNK_COMPRESSION, comment = "Compression of saved chunks, deflate as vanilla or lz to save faster with larger files. "
+                + "Chunks saved with lz can only be read by Sponge, use /sponge recompress to convert a world back")
+        private String chunkCompression = "deflate";
+
+        @Setting(value = IO_COMPRESSION_LEVEL, comment = "Deflate level of saved chunks and level.dat, 1 is fastest and 9 smallest")
+        private int compressionLevel = 6;
+
+        @Setting(value = IO_REGION_FILE_CACHE_SIZE, comment = "Max number of region files kept open across all worlds")
+        private int regionFileCacheSize = 256;
+
+        public int getChunkLoadThreads() {
+            return this.chunkLoadThreads;
+        }
+
+        public void setChunkLoadThreads(int chunkLoadThreads) {
+            this.chunkLoadThreads = chunkLoadThreads;
+        }
+
+        public String getChunkCompression() {
+            return this.chunkCompression;
+        }
+
+        public void setChunkCompression(String chunkCompression) {
+            this.chunkCompression = chunkCompression;
+        }
+
+        public int getCompressionLevel() {
+            return this.compressionLevel;
+        }
+
+        public void setCompressionLevel(int compressionLevel) {
+            this.compressionLevel = compressionLevel;
+        }
+
+        public int getRegionFileCacheSize() {
+            return this.regionFileCacheSize;
+        }
+
+        public void setRegionFileCacheSize(int regionFileCacheSize) {
+            this.regionFileCacheSize = regionFileCacheSize;
+        }
+    }
+
     @SuppressWarnings("UnusedDeclaration")
     @ConfigSerializable
     public static class DebugCategory extends Category {
@@ -452,6 +636,16 @@ public class SpongeConfig<T extends SpongeConfig.ConfigBase> {
         private int ambientActivationRange = 32;
         @Setting(value = ENTITY_ACTIVATION_RANGE_MISC)
         private int miscActivationRange = 16;
+        @Setting(value = ENTITY_TICK_TIERS_CREATURE)
+        private TickTiersCategory creatureTickTiers = new TickTiersCategory();
+        @Setting(value = ENTITY_TICK_TIERS_MONSTER)
+        private TickTiersCategory monsterTickTiers = new TickTiersCategory();
+        @Setting(value = ENTITY_TICK_TIERS_AQUATIC)
+        private TickTiersCategory aquaticTickTiers = new TickTiersCategory();
+        @Setting(value = ENTITY_TICK_TIERS_AMBIENT)
+        private TickTiersCategory ambientTickTiers = new TickTiersCategory();
+        @Setting(value = ENTITY_TICK_TIERS_MISC)
+        private TickTiersCategory miscTickTiers = new TickTiersCategory();
 
         public int getCreatureActivationRange() {
             return this.creatureActivationRange;
@@ -492,6 +686,105 @@ public class SpongeConfig<T extends SpongeConfig.ConfigBase> {
         public void setMiscActivationRange(int miscActivationRange) {
             this.miscActivationRange = miscActivationRange;
         }
+
+        public TickTiersCategory getCreatureTickTiers() {
+            return this.creatureTickTiers;
+        }
+
+        public TickTiersCategory getMonsterTickTiers() {
+            return this.monsterTickTiers;
+        }
+
+        public TickTiersCategory getAquaticTickTiers() {
+            return this.aquaticTickTiers;
+        }
+
+        public TickTiersCategory getAmbientTickTiers() {
+            return this.ambientTickTiers;
+        }
+
+        public TickTiersCategory getMiscTickTiers() {
+            return this.miscTickTiers;
+        }
+    }
+
+    @ConfigSerializable
+    public static class TileEntityActivationRangeCategory extends Category {
+
+        @Setting(value = TILE_ENTITY_ACTIVATION_ENABLED, comment = "Throttle tile entities that are out of range of every player")
+        private boolean enabled = false;
+        @Setting(value = TILE_ENTITY_ACTIVATION_DEFAULT_RANGE, comment = "Activation range of tile entities not listed in ranges")
+        private int defaultRange = 32;
+        @Setting(value = TILE_ENTITY_ACTIVATION_TICK_INTERVAL, comment = "Tile entities out of range tick once every this many ticks")
+        private int tickInterval = 20;
+        @Setting(value = TILE_ENTITY_ACTIVATION_RANGES,
+                comment = "Activation range by tile entity class name, for example TileEntityHopper. Set to 0 to always tick")
+        private Map<String, Integer> ranges = new HashMap<String, Integer>();
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getDefaultRange() {
+            return this.defaultRange;
+        }
+
+        public void setDefaultRange(int defaultRange) {
+            this.defaultRange = defaultRange;
+        }
+
+        public int getTickInterval() {
+            return this.tickInterval;
+        }
+
+        public void setTickInterval(int tickInterval) {
+            this.tickInterval = tickInterval;
+        }
+
+        public Map<String, Integer> getRanges() {
+            return this.ranges;
+        }
+    }
+
+    @ConfigSerializable
+    public static class TickTiersCategory extends Category {
+
+        @Setting(value = ENTITY_TICK_TIERS_NEAR_RANGE_MULTIPLIER,
+                comment = "Entities outside their activation range but within this many times that range are in the near tier")
+        private int nearRangeMultiplier = 2;
+        @Setting(value = ENTITY_TICK_TIERS_NEAR_INTERVAL, comment = "Entities in the near tier tick once every this many ticks")
+        private int nearInterval = 2;
+        @Setting(value = ENTITY_TICK_TIERS_FAR_INTERVAL,
+                comment = "Entities beyond the near tier tick once every this many ticks. Set to 0 to never tick them")
+        private int farInterval = 8;
+
+        public int getNearRangeMultiplier() {
+            return this.nearRangeMultiplier;
+        }
+
+        public void setNearRangeMultiplier(int nearRangeMultiplier) {
+            this.nearRangeMultiplier = nearRangeMultiplier;
+        }
+
+        public int getNearInterval() {
+            return this.nearInterval;
+        }
+
+        public void setNearInterval(int nearInterval) {
+            this.nearInterval = nearInterval;
+        }
+
+        public int getFarInterval() {
+            return this.farInterval;
+        }
+
+        public void setFarInterval(int farInterval) {
+            this.farInterval = farInterval;
+        }
     }
 
     @ConfigSerializable
@@ -601,6 +894,16 @@ public class SpongeConfig<T extends SpongeConfig.ConfigBase> {
         private boolean infiniteWaterSource = false;
         @Setting(value = WORLD_FLOWING_LAVA_DECAY, comment = "Lava behaves like vanilla water when source block is removed")
         private boolean flowingLavaDecay = false;
+        @Setting(value = WORLD_MAX_ENTITY_TICK_TIME,
+                comment = "Milliseconds entities may tick for each tick, the rest resume next tick. 0 to disable")
+        private int maxEntityTickTime = 0;
+        @Setting(value = WORLD_MAX_TILE_ENTITY_TICK_TIME,
+                comment = "Milliseconds tile entities may tick for each tick, the rest resume next tick. 0 to disable")
+        private int maxTileEntityTickTime = 0;
+        @Setting(value = WORLD_AUTOSAVE_CHUNKS_PER_TICK,
+                comment = "Max number of chunks saved each tick by autosave. On by default, which spreads each autosave over the following "
+                + "ticks instead of saving every chunk in one tick. Chunks still queued are not queued again. 0 to save all at once like vanilla")
+        private int autosaveChunksPerTick = 24;
 
         public boolean hasInfiniteWaterSource() {
             return this.infiniteWaterSource;
@@ -617,6 +920,30 @@ public class SpongeConfig<T extends SpongeConfig.ConfigBase> {
         public void setFlowingLavaDecay(boolean flowingLavaDecay) {
             this.flowingLavaDecay = flowingLavaDecay;
         }
+
+        public int getMaxEntityTickTime() {
+            return this.maxEntityTickTime;
+        }
+
+        public void setMaxEntityTickTime(int maxEntityTickTime) {
+            this.maxEntityTickTime = maxEntityTickTime;
+        }
+
+        public int getMaxTileEntityTickTime() {
+            return this.maxTileEntityTickTime;
+        }
+
+        public void setMaxTileEntityTickTime(int maxTileEntityTickTime) {
+            this.maxTileEntityTickTime = maxTileEntityTickTime;
+        }
+
+        public int getAutosaveChunksPerTick() {
+            return this.autosaveChunksPerTick;
+        }
+
+        public void setAutosaveChunksPerTick(int autosaveChunksPerTick) {
+            this.autosaveChunksPerTick = autosaveChunksPerTick;
+        }
     }
 
     @ConfigSerializable
@@ -30,8 +30,14 @@ import net.minecraftforge.fml.common.registry.EntityRegistry.EntityRegistration;
 import org.spongepowered.api.entity.EntityType;
 import org.spongepowered.api.text.translation.Translation;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class SpongeEntityType implements EntityType {
 
+    private static final AtomicInteger nextIndex = new AtomicInteger();
+
+    // Dense index of this type, used to key per-type lookup tables
+    public final int index = nextIndex.getAndIncrement();
     public final int entityTypeId;
     public final String entityName;
     public final String modId;
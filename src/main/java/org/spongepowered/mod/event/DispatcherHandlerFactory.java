@@ -0,0 +1,261 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.event;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.objectweb.asm.ClassWriter.COMPUTE_FRAMES;
+import static org.objectweb.asm.ClassWriter.COMPUTE_MAXS;
+import static org.objectweb.asm.Opcodes.ACC_FINAL;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.ACC_SUPER;
+import static org.objectweb.asm.Opcodes.ALOAD;
+import static org.objectweb.asm.Opcodes.ATHROW;
+import static org.objectweb.asm.Opcodes.CHECKCAST;
+import static org.objectweb.asm.Opcodes.DUP;
+import static org.objectweb.asm.Opcodes.ILOAD;
+import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
+import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
+import static org.objectweb.asm.Opcodes.NEW;
+import static org.objectweb.asm.Opcodes.RETURN;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.spongepowered.api.event.Cancellable;
+import org.spongepowered.api.event.Event;
+import org.spongepowered.api.event.Subscribe;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link HandlerFactory} which generates a single {@link EventDispatcher}
+ * class per listener class, switching on a method index, instead of one
+ * class per handler method like {@link HandlerClassFactory}.
+ *
+ * <p>
+ * Handlers themselves are plain objects sharing the dispatcher of their
+ * listener class, so creating a handler needs neither class generation nor
+ * reflective construction once the listener class has been seen.
+ * </p>
+ */
+class DispatcherHandlerFactory implements HandlerFactory {
+
+    private final AtomicInteger index = new AtomicInteger();
+    private final LocalClassLoader classLoader = new LocalClassLoader(DispatcherHandlerFactory.class.getClassLoader());
+    private final String targetPackage;
+    // Each dispatcher references its listener class, so entries are held by the
+    // handlers using them rather than by their key, and dropped once unused
+    private final LoadingCache<Class<?>, ListenerDispatcher> cache = CacheBuilder.newBuilder()
+            .weakValues()
+            .build(
+                    new CacheLoader<Class<?>, ListenerDispatcher>() {
+
+                        @Override
+                        public ListenerDispatcher load(Class<?> type) throws Exception {
+                            return createDispatcher(type);
+                        }
+                    });
+
+    /**
+     * Creates a new dispatcher factory.
+     *
+     * <p>
+     * Different instances of this class should use different packages.
+     * </p>
+     *
+     * @param targetPackage The target package
+     */
+    public DispatcherHandlerFactory(String targetPackage) {
+        checkNotNull(targetPackage, "targetPackage");
+        this.targetPackage = targetPackage;
+    }
+
+    @Override
+    public Handler createHandler(Object object, Method method, boolean ignoreCancelled) {
+        ListenerDispatcher listenerDispatcher = this.cache.getUnchecked(object.getClass());
+        Integer methodIndex = listenerDispatcher.indices.get(method);
+        if (methodIndex == null) {
+            throw new IllegalArgumentException("The method " + method + " is not a subscriber of " + object.getClass().getName());
+        }
+        return new DispatchingHandler(object, method, listenerDispatcher, methodIndex, ignoreCancelled);
+    }
+
+    private ListenerDispatcher createDispatcher(Class<?> type) throws Exception {
+        List<Method> methods = Lists.newArrayList();
+        for (Method method : type.getMethods()) {
+            if (method.isAnnotationPresent(Subscribe.class) && SpongeEventBus.isValidHandler(method)) {
+                methods.add(method);
+            }
+        }
+
+        String name = this.targetPackage + "." + type.getSimpleName() + "Dispatcher_" + this.index.incrementAndGet();
+        byte[] bytes = generateClass(type, methods, name);
+        EventDispatcher dispatcher = (EventDispatcher) this.classLoader.defineClass(name, bytes).newInstance();
+
+        Map<Method, Integer> indices = Maps.newHashMap();
+        for (int i = 0; i < methods.size(); i++) {
+            indices.put(methods.get(i), i);
+        }
+        return new ListenerDispatcher(dispatcher, indices);
+    }
+
+    public byte[] generateClass(Class<?> objectClass, List<Method> methods, String className) {
+        ClassWriter cw = new ClassWriter(COMPUTE_FRAMES | COMPUTE_MAXS);
+        MethodVisitor mv;
+
+        String createdInternalName = className.replace(".", "/");
+        String invokedInternalName = Type.getInternalName(objectClass);
+
+        cw.visit(Opcodes.V1_6, ACC_PUBLIC + ACC_FINAL + ACC_SUPER, createdInternalName, null, "java/lang/Object",
+                new String[] {Type.getInternalName(EventDispatcher.class)});
+
+        {
+            mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+            mv.visitCode();
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+            mv.visitInsn(RETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        {
+            mv = cw.visitMethod(ACC_PUBLIC, "dispatch", "(Ljava/lang/Object;ILorg/spongepowered/api/event/Event;)V", null, null);
+            mv.visitCode();
+            Label defaultLabel = new Label();
+            Label[] labels = new Label[methods.size()];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = new Label();
+            }
+            if (labels.length > 0) {
+                mv.visitVarInsn(ILOAD, 2);
+                mv.visitTableSwitchInsn(0, labels.length - 1, defaultLabel, labels);
+            }
+            for (int i = 0; i < labels.length; i++) {
+                Method method = methods.get(i);
+                String eventInternalName = Type.getInternalName(method.getParameterTypes()[0]);
+                mv.visitLabel(labels[i]);
+                mv.visitVarInsn(ALOAD, 1);
+                mv.visitTypeInsn(CHECKCAST, invokedInternalName);
+                mv.visitVarInsn(ALOAD, 3);
+                mv.visitTypeInsn(CHECKCAST, eventInternalName);
+                mv.visitMethodInsn(INVOKEVIRTUAL, invokedInternalName, method.getName(), "(L" + eventInternalName + ";)V", false);
+                mv.visitInsn(RETURN);
+            }
+            mv.visitLabel(defaultLabel);
+            mv.visitTypeInsn(NEW, "java/lang/IllegalArgumentException");
+            mv.visitInsn(DUP);
+            mv.visitMethodInsn(INVOKESPECIAL, "java/lang/IllegalArgumentException", "<init>", "()V", false);
+            mv.visitInsn(ATHROW);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+        cw.visitEnd();
+
+        return cw.toByteArray();
+    }
+
+    private static class ListenerDispatcher {
+
+        private final EventDispatcher dispatcher;
+        private final Map<Method, Integer> indices;
+
+        private ListenerDispatcher(EventDispatcher dispatcher, Map<Method, Integer> indices) {
+            this.dispatcher = dispatcher;
+            this.indices = indices;
+        }
+    }
+
+    private static class DispatchingHandler implements Handler {
+
+        private final Object object;
+        private final Method method;
+        // Keeps the cached dispatcher of the listener class alive while the handler is used
+        private final ListenerDispatcher listenerDispatcher;
+        private final EventDispatcher dispatcher;
+        private final int index;
+        private final boolean ignoreCancelled;
+
+        public DispatchingHandler(Object object, Method method, ListenerDispatcher listenerDispatcher, int index, boolean ignoreCancelled) {
+            this.object = object;
+            this.method = method;
+            this.listenerDispatcher = listenerDispatcher;
+            this.dispatcher = listenerDispatcher.dispatcher;
+            this.index = index;
+            this.ignoreCancelled = ignoreCancelled;
+        }
+
+        @Override
+        public void handle(Event event) {
+            if (this.ignoreCancelled && (event instanceof Cancellable) && ((Cancellable) event).isCancelled()) {
+                return;
+            }
+            this.dispatcher.dispatch(this.object, this.index, event);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            DispatchingHandler that = (DispatchingHandler) o;
+
+            if (!this.method.equals(that.method)) {
+                return false;
+            }
+            if (!this.object.equals(that.object)) {
+                return false;
+            }
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = this.object.hashCode();
+            result = 31 * result + this.method.hashCode();
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return this.object.getClass().getSimpleName() + "." + this.method.getName();
+        }
+    }
+
+}
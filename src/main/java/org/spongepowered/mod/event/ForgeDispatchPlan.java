@@ -0,0 +1,104 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.event;
+
+import com.google.common.collect.Maps;
+import net.minecraftforge.fml.common.eventhandler.EventPriority;
+import net.minecraftforge.fml.common.eventhandler.IEventListener;
+import org.spongepowered.api.event.Order;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+
+/**
+ * A flattened dispatch order for a Forge event which is also a Sponge event.
+ *
+ * <p>
+ * Forge listeners are interleaved with the Sponge handlers of the matching
+ * {@link Order} buckets, so posting is a single walk over one array. A plan
+ * is only valid for the exact Forge listener array and {@link HandlerCache}
+ * it was built from; both are replaced (never mutated) when listeners change.
+ * </p>
+ */
+class ForgeDispatchPlan {
+
+    private static final EnumMap<EventPriority, Order> priorityMappings = Maps.newEnumMap(EventPriority.class);
+
+    static {
+        priorityMappings.put(EventPriority.HIGHEST, Order.FIRST);
+        priorityMappings.put(EventPriority.HIGH, Order.EARLY);
+        priorityMappings.put(EventPriority.NORMAL, Order.DEFAULT);
+        priorityMappings.put(EventPriority.LOW, Order.LATE);
+        priorityMappings.put(EventPriority.LOWEST, Order.LAST);
+    }
+
+    private final IEventListener[] listeners;
+    private final Object[] entries;
+
+    private ForgeDispatchPlan(IEventListener[] listeners, Object[] entries) {
+        this.listeners = listeners;
+        this.entries = entries;
+    }
+
+    static ForgeDispatchPlan create(HandlerCache handlerCache, IEventListener[] listeners) {
+        List<Object> entries = new ArrayList<Object>(listeners.length + handlerCache.getHandlers().length);
+        Order[] orders = Order.values();
+        int nextOrder = 0;
+
+        for (IEventListener listener : listeners) {
+            if (listener instanceof EventPriority) {
+                Order order = priorityMappings.get(listener);
+
+                for (; nextOrder <= order.ordinal(); nextOrder++) {
+                    Collections.addAll(entries, (Object[]) handlerCache.getHandlersByOrder(orders[nextOrder]));
+                }
+            }
+            entries.add(listener);
+        }
+
+        for (; nextOrder < orders.length; nextOrder++) {
+            Collections.addAll(entries, (Object[]) handlerCache.getHandlersByOrder(orders[nextOrder]));
+        }
+
+        return new ForgeDispatchPlan(listeners, entries.toArray());
+    }
+
+    boolean isFor(IEventListener[] listeners) {
+        return this.listeners == listeners;
+    }
+
+    /**
+     * Gets the dispatch entries in order, each being either a Sponge
+     * {@link RegisteredHandler} or a Forge {@link IEventListener}.
+     *
+     * @return The entries
+     */
+    Object[] getEntries() {
+        return this.entries;
+    }
+
+}
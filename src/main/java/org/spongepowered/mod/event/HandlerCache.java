@@ -24,41 +24,72 @@
  */
 package org.spongepowered.mod.event;
 
-import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
+import net.minecraftforge.fml.common.eventhandler.IEventListener;
 import org.spongepowered.api.event.Order;
 
-import java.util.ArrayList;
-import java.util.EnumMap;
 import java.util.List;
 
+/**
+ * An immutable snapshot of the handlers for a single event type.
+ *
+ * <p>
+ * Instances are never modified after construction; when the handlers for an
+ * event type change a new cache is baked and published in place of the old
+ * one, so posting never needs to take the bus lock.
+ * </p>
+ */
 class HandlerCache {
 
-    private final List<Handler> handlers;
-    private final EnumMap<Order, List<Handler>> orderGrouped;
+    private static final Order[] ORDERS = Order.values();
+
+    private final RegisteredHandler[] handlers;
+    private final RegisteredHandler[][] orderGrouped;
+    private volatile ForgeDispatchPlan forgePlan;
 
-    @SuppressWarnings("unchecked")
     HandlerCache(List<RegisteredHandler> registrations) {
-        this.handlers = Lists.newArrayList();
-        for (RegisteredHandler reg : registrations) {
-            this.handlers.add(reg.getHandler());
+        this.handlers = registrations.toArray(new RegisteredHandler[registrations.size()]);
+        int[] counts = new int[ORDERS.length];
+        for (RegisteredHandler reg : this.handlers) {
+            counts[reg.getOrder().ordinal()]++;
         }
 
-        this.orderGrouped = Maps.newEnumMap(Order.class);
-        for (Order order : Order.values()) {
-            this.orderGrouped.put(order, new ArrayList<Handler>());
+        this.orderGrouped = new RegisteredHandler[ORDERS.length][];
+        for (int i = 0; i < ORDERS.length; i++) {
+            this.orderGrouped[i] = new RegisteredHandler[counts[i]];
+            counts[i] = 0;
         }
-        for (RegisteredHandler reg : registrations) {
-            this.orderGrouped.get(reg.getOrder()).add(reg.getHandler());
+        for (RegisteredHandler reg : this.handlers) {
+            int ordinal = reg.getOrder().ordinal();
+            this.orderGrouped[ordinal][counts[ordinal]++] = reg;
         }
     }
 
-    public List<Handler> getHandlers() {
+    public RegisteredHandler[] getHandlers() {
         return this.handlers;
     }
 
-    public List<Handler> getHandlersByOrder(Order order) {
-        return this.orderGrouped.get(order);
+    public boolean isEmpty() {
+        return this.handlers.length == 0;
+    }
+
+    public RegisteredHandler[] getHandlersByOrder(Order order) {
+        return this.orderGrouped[order.ordinal()];
+    }
+
+    /**
+     * Gets the dispatch plan merging these handlers with the given Forge
+     * listeners, building it if the listeners changed since the last call.
+     *
+     * @param listeners The Forge listeners of the event
+     * @return The dispatch plan
+     */
+    public ForgeDispatchPlan getForgePlan(IEventListener[] listeners) {
+        ForgeDispatchPlan plan = this.forgePlan;
+        if (plan == null || !plan.isFor(listeners)) {
+            plan = ForgeDispatchPlan.create(this, listeners);
+            this.forgePlan = plan;
+        }
+        return plan;
     }
 
 }
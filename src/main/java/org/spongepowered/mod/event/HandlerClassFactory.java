@@ -71,7 +71,6 @@ class HandlerClassFactory implements HandlerFactory {
     private final LocalClassLoader classLoader = new LocalClassLoader(HandlerClassFactory.class.getClassLoader());
     private final String targetPackage;
     private final LoadingCache<CacheKey, Class<?>> cache = CacheBuilder.newBuilder()
-            .concurrencyLevel(1)
             .weakValues()
             .build(
                     new CacheLoader<CacheKey, Class<?>>() {
@@ -98,15 +97,13 @@ class HandlerClassFactory implements HandlerFactory {
 
     @Override
     public Handler createHandler(Object object, Method method, boolean ignoreCancelled) {
-        synchronized (this.cache) {
-            CacheKey key = new CacheKey(object.getClass(), method, ignoreCancelled);
-            try {
-                return (Handler) this.cache.getUnchecked(key)
-                        .getConstructor(object.getClass(), Method.class)
-                        .newInstance(object, method);
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to create a handler", e);
-            }
+        CacheKey key = new CacheKey(object.getClass(), method, ignoreCancelled);
+        try {
+            return (Handler) this.cache.getUnchecked(key)
+                    .getConstructor(object.getClass(), Method.class)
+                    .newInstance(object, method);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to create a handler", e);
         }
     }
 
@@ -243,17 +240,6 @@ class HandlerClassFactory implements HandlerFactory {
         return cw.toByteArray();
     }
 
-    private static class LocalClassLoader extends ClassLoader {
-
-        public LocalClassLoader(ClassLoader parent) {
-            super(parent);
-        }
-
-        public Class<?> defineClass(String name, byte[] b) {
-            return defineClass(name, b, 0, b.length);
-        }
-    }
-
     private static class CacheKey {
 
         private final Class<?> type;
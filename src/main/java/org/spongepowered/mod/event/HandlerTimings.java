@@ -0,0 +1,114 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.event;
+
+import org.spongepowered.api.plugin.PluginContainer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cumulative timings of a single registered handler.
+ *
+ * <p>
+ * Counters are updated without locking on every call, which only costs two
+ * {@link System#nanoTime()} calls and a few uncontended atomic adds, so they
+ * are always recorded.
+ * </p>
+ */
+public class HandlerTimings {
+
+    private final PluginContainer plugin;
+    private final Class<?> eventClass;
+    private final String handlerName;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLong exceptions = new AtomicLong();
+
+    HandlerTimings(PluginContainer plugin, Class<?> eventClass, String handlerName) {
+        this.plugin = plugin;
+        this.eventClass = eventClass;
+        this.handlerName = handlerName;
+    }
+
+    void record(long nanos) {
+        this.calls.incrementAndGet();
+        this.totalNanos.addAndGet(nanos);
+
+        long max;
+        do {
+            max = this.maxNanos.get();
+            if (nanos <= max) {
+                return;
+            }
+        } while (!this.maxNanos.compareAndSet(max, nanos));
+    }
+
+    void recordException() {
+        this.exceptions.incrementAndGet();
+    }
+
+    public void reset() {
+        this.calls.set(0);
+        this.totalNanos.set(0);
+        this.maxNanos.set(0);
+        this.exceptions.set(0);
+    }
+
+    public PluginContainer getPlugin() {
+        return this.plugin;
+    }
+
+    public Class<?> getEventClass() {
+        return this.eventClass;
+    }
+
+    /**
+     * Gets the name of the handler, which for listener objects is the
+     * listener class and method it was registered from.
+     *
+     * @return The handler name
+     */
+    public String getHandlerName() {
+        return this.handlerName;
+    }
+
+    public long getCalls() {
+        return this.calls.get();
+    }
+
+    public long getTotalNanos() {
+        return this.totalNanos.get();
+    }
+
+    public long getMaxNanos() {
+        return this.maxNanos.get();
+    }
+
+    public long getExceptions() {
+        return this.exceptions.get();
+    }
+
+}
@@ -32,15 +32,17 @@ class RegisteredHandler implements Comparable<RegisteredHandler> {
     private final Handler handler;
     private final Order order;
     private final PluginContainer container;
+    private final HandlerTimings timings;
 
-    RegisteredHandler(Handler handler, Order order, PluginContainer container) {
+    RegisteredHandler(Class<?> eventClass, Handler handler, Order order, PluginContainer container, String name) {
         this.handler = handler;
         this.order = order;
         this.container = container;
+        this.timings = new HandlerTimings(container, eventClass, name);
     }
 
     static RegisteredHandler createForComparison(Handler handler) {
-        return new RegisteredHandler(handler, null, null);
+        return new RegisteredHandler(null, handler, null, null, null);
     }
 
     public Handler getHandler() {
@@ -55,6 +57,10 @@ class RegisteredHandler implements Comparable<RegisteredHandler> {
         return this.container;
     }
 
+    public HandlerTimings getTimings() {
+        return this.timings;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -27,16 +27,14 @@ package org.spongepowered.mod.event;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.base.Optional;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.HashMultimap;
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
 import com.google.common.reflect.TypeToken;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.inject.Inject;
-import net.minecraftforge.fml.common.eventhandler.EventPriority;
 import net.minecraftforge.fml.common.eventhandler.IEventListener;
 import org.spongepowered.api.event.Cancellable;
 import org.spongepowered.api.event.Event;
@@ -46,12 +44,23 @@ import org.spongepowered.api.plugin.PluginContainer;
 import org.spongepowered.api.plugin.PluginManager;
 import org.spongepowered.api.service.event.EventManager;
 import org.spongepowered.mod.SpongeMod;
+import org.spongepowered.mod.configuration.SpongeConfig;
+import org.spongepowered.mod.mixin.plugin.CoreMixinPlugin;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
 
@@ -59,33 +68,35 @@ public class SpongeEventBus implements EventManager {
 
     private final Object lock = new Object();
     private final PluginManager pluginManager;
-    private final HandlerFactory handlerFactory = new HandlerClassFactory("org.spongepowered.mod.event.handler");
+    private final HandlerFactory handlerFactory = createHandlerFactory();
     private final Multimap<Class<?>, RegisteredHandler> handlersByEvent = HashMultimap.create();
 
     /**
      * A cache of all the handlers for an event type for quick event posting.
      *
      * <p>
-     * The cache is currently entirely invalidated if handlers are added or
-     * removed.
+     * Entries are immutable and are replaced (never mutated) when handlers
+     * are added or removed. Only the entries for event types affected by a
+     * change are rebuilt, so posting unrelated events is not disturbed.
+     * Reads are lock free; entries are only written while holding the lock.
      * </p>
      */
-    private final LoadingCache<Class<?>, HandlerCache> handlersCache =
-            CacheBuilder.newBuilder().build(new CacheLoader<Class<?>, HandlerCache>() {
+    private final Map<Class<?>, HandlerCache> handlersCache = new ConcurrentHashMap<Class<?>, HandlerCache>();
 
-                @Override
-                public HandlerCache load(Class<?> type) throws Exception {
-                    return bakeHandlers(type);
-                }
-            });
+    /**
+     * Listener objects registered while batching, in registration order.
+     * Their subscribers are found and their handlers generated in parallel
+     * by the {@link #registrationExecutor}, and they are only added to the
+     * handlers once an event they handle is posted or batching finishes.
+     */
+    private final Set<PendingRegistration> pendingRegistrations = Sets.newLinkedHashSet();
+    @Nullable private volatile ExecutorService registrationExecutor;
 
-    private final ImmutableMap<EventPriority, Order> priorityMappings = new ImmutableMap.Builder<EventPriority, Order>()
-            .put(EventPriority.HIGHEST, Order.FIRST)
-            .put(EventPriority.HIGH, Order.EARLY)
-            .put(EventPriority.NORMAL, Order.DEFAULT)
-            .put(EventPriority.LOW, Order.LATE)
-            .put(EventPriority.LOWEST, Order.LAST)
-            .build();
+    /**
+     * The event types handled by the {@link #pendingRegistrations}, checked
+     * without locking when posting. The set is replaced, never mutated.
+     */
+    private volatile Set<Class<?>> pendingEventTypes = Collections.emptySet();
 
     @Inject
     public SpongeEventBus(PluginManager pluginManager) {
@@ -93,7 +104,16 @@ public class SpongeEventBus implements EventManager {
         this.pluginManager = pluginManager;
     }
 
-    private static boolean isValidHandler(Method method) {
+    private static HandlerFactory createHandlerFactory() {
+        SpongeConfig<SpongeConfig.GlobalConfig> config = CoreMixinPlugin.getGlobalConfig();
+        if (config != null && config.getConfig() != null
+                && SpongeConfig.EVENTS_HANDLER_FACTORY_DISPATCHER.equalsIgnoreCase(config.getConfig().getEvents().getHandlerFactory())) {
+            return new DispatcherHandlerFactory("org.spongepowered.mod.event.dispatcher");
+        }
+        return new HandlerClassFactory("org.spongepowered.mod.event.handler");
+    }
+
+    static boolean isValidHandler(Method method) {
         Class<?>[] paramTypes = method.getParameterTypes();
         return !Modifier.isStatic(method.getModifiers())
                 && !Modifier.isAbstract(method.getModifiers())
@@ -121,8 +141,64 @@ public class SpongeEventBus implements EventManager {
         return new HandlerCache(registrations);
     }
 
-    private HandlerCache getHandlerCache(Class<?> type) {
-        return this.handlersCache.getUnchecked(type);
+    /**
+     * Rebuilds the cached handlers of every event type which is a subtype of
+     * one of the given types. Cached entries of unrelated event types are
+     * left untouched.
+     *
+     * <p>
+     * Must be called while holding the lock.
+     * </p>
+     *
+     * @param changedTypes The event types whose handlers have changed
+     */
+    private void rebakeHandlers(Set<Class<?>> changedTypes) {
+        for (Class<?> type : this.handlersCache.keySet()) {
+            for (Class<?> changedType : changedTypes) {
+                if (changedType.isAssignableFrom(type)) {
+                    this.handlersCache.put(type, bakeHandlers(type));
+                    break;
+                }
+            }
+        }
+    }
+
+    HandlerCache getHandlerCache(Class<?> type) {
+        for (Class<?> pendingType : this.pendingEventTypes) {
+            if (pendingType.isAssignableFrom(type)) {
+                flushPendingRegistrations();
+                break;
+            }
+        }
+
+        HandlerCache handlerCache = this.handlersCache.get(type);
+        if (handlerCache == null) {
+            synchronized (this.lock) {
+                handlerCache = this.handlersCache.get(type);
+                if (handlerCache == null) {
+                    handlerCache = bakeHandlers(type);
+                    this.handlersCache.put(type, handlerCache);
+                }
+            }
+        }
+        return handlerCache;
+    }
+
+    /**
+     * Gets whether any handler is registered for the given event type or
+     * one of its supertypes.
+     *
+     * <p>
+     * Hooks can use this to skip constructing events which nobody listens
+     * to. The answer comes from the same cache used for posting and is kept
+     * current by registration, so this is as cheap as a map lookup.
+     * </p>
+     *
+     * @param type The event type
+     * @return True if posting an event of this type would call a handler
+     */
+    public boolean hasHandlers(Class<? extends Event> type) {
+        return !getHandlerCache(type).isEmpty();
     }
 
     @SuppressWarnings("unchecked")
@@ -140,7 +216,7 @@ public class SpongeEventBus implements EventManager {
                 if (isValidHandler(method)) {
                     Class<Event> eventClass = (Class<Event>) paramTypes[0];
                     Handler handler = this.handlerFactory.createHandler(object, method, subscribe.ignoreCancelled());
-                    subscribers.add(new Subscriber(eventClass, handler, subscribe.order()));
+                    subscribers.add(new Subscriber(eventClass, handler, subscribe.order(), type.getName() + "#" + method.getName()));
                 } else {
                     SpongeMod.instance.getLogger().warn("The method {} on {} has @{} but has the wrong signature",
                             method, method.getDeclaringClass().getName(), Subscribe.class.getName());
@@ -151,6 +227,16 @@ public class SpongeEventBus implements EventManager {
         return subscribers;
     }
 
+    private static Set<Class<?>> findSubscribedEventTypes(Class<?> type) {
+        Set<Class<?>> eventTypes = Sets.newHashSet();
+        for (Method method : type.getMethods()) {
+            if (method.isAnnotationPresent(Subscribe.class) && isValidHandler(method)) {
+                eventTypes.add(method.getParameterTypes()[0]);
+            }
+        }
+        return eventTypes;
+    }
+
     public boolean register(Class<?> type, Handler handler, Order order, PluginContainer container) {
         return register(new Subscriber(type, handler, order), container);
     }
@@ -163,7 +249,7 @@ public class SpongeEventBus implements EventManager {
         checkNotNull(container, "plugin");
         checkNotNull(object, "object");
 
-        registerAll(findAllSubscribers(object), container);
+        registerObject(container, object);
     }
 
     @Override
@@ -176,25 +262,154 @@ public class SpongeEventBus implements EventManager {
             throw new IllegalArgumentException("The specified object is not a plugin object");
         }
 
-        registerAll(findAllSubscribers(object), container.get());
+        registerObject(container.get(), object);
+    }
+
+    private void registerObject(PluginContainer container, final Object object) {
+        if (this.registrationExecutor != null) {
+            Set<Class<?>> eventTypes = findSubscribedEventTypes(object.getClass());
+            synchronized (this.lock) {
+                ExecutorService executor = this.registrationExecutor;
+                if (executor != null) {
+                    this.pendingRegistrations.add(new PendingRegistration(container, object, eventTypes,
+                            executor.submit(new Callable<List<Subscriber>>() {
+
+                                @Override
+                                public List<Subscriber> call() throws Exception {
+                                    return findAllSubscribers(object);
+                                }
+                            })));
+                    updatePendingEventTypes();
+                    return;
+                }
+            }
+        }
+
+        registerAll(findAllSubscribers(object), container);
     }
 
     private boolean registerAll(List<Subscriber> subscribers, PluginContainer container) {
         synchronized (this.lock) {
-            boolean changed = false;
+            Set<Class<?>> changed = addHandlers(subscribers, container);
+            if (!changed.isEmpty()) {
+                rebakeHandlers(changed);
+            }
 
-            for (Subscriber sub : subscribers) {
-                if (this.handlersByEvent.put(sub.getEventClass(), new RegisteredHandler(sub.getHandler(), sub.getOrder(), container))) {
-                    changed = true;
+            return !changed.isEmpty();
+        }
+    }
+
+    private Set<Class<?>> addHandlers(List<Subscriber> subscribers, PluginContainer container) {
+        Set<Class<?>> changed = Sets.newHashSet();
+
+        for (Subscriber sub : subscribers) {
+            RegisteredHandler registration = new RegisteredHandler(sub.getEventClass(), sub.getHandler(), sub.getOrder(), container,
+                    sub.getName());
+            if (this.handlersByEvent.put(sub.getEventClass(), registration)) {
+                changed.add(sub.getEventClass());
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Starts batching listener registrations.
+     *
+     * <p>
+     * Until {@link #finishBatchRegistration()} is called, listener objects
+     * are scanned and their handlers generated in parallel, and the handler
+     * caches are only rebuilt when an event handled by a pending listener is
+     * posted or batching finishes, instead of after every registration.
+     * </p>
+     */
+    public void startBatchRegistration() {
+        synchronized (this.lock) {
+            if (this.registrationExecutor == null) {
+                int threads = Runtime.getRuntime().availableProcessors();
+                ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                        new ThreadFactoryBuilder().setNameFormat("Sponge Event Registration #%d").setDaemon(true).build());
+                executor.allowCoreThreadTimeOut(true);
+                this.registrationExecutor = executor;
+            }
+        }
+    }
+
+    /**
+     * Finishes batching listener registrations, adding all pending listeners
+     * and rebuilding the affected handler caches once.
+     */
+    public void finishBatchRegistration() {
+        synchronized (this.lock) {
+            if (this.registrationExecutor != null) {
+                // Already submitted scans still run to completion
+                this.registrationExecutor.shutdown();
+                this.registrationExecutor = null;
+            }
+        }
+
+        flushPendingRegistrations();
+    }
+
+    /**
+     * Adds the handlers of all pending listeners. The scans are waited for
+     * without holding the lock, so posting and registering are not blocked
+     * meanwhile, and all of their results are then applied under the lock at
+     * once.
+     *
+     * <p>
+     * Must not be called while holding the lock.
+     * </p>
+     */
+    private void flushPendingRegistrations() {
+        List<PendingRegistration> flushing;
+        synchronized (this.lock) {
+            if (this.pendingRegistrations.isEmpty()) {
+                return;
+            }
+            flushing = Lists.newArrayList(this.pendingRegistrations);
+        }
+
+        for (PendingRegistration pending : flushing) {
+            try {
+                Uninterruptibles.getUninterruptibly(pending.subscribers);
+            } catch (ExecutionException ignored) {
+                // Logged below when the registration is applied
+            }
+        }
+
+        synchronized (this.lock) {
+            Set<Class<?>> changed = Sets.newHashSet();
+            for (PendingRegistration pending : flushing) {
+                // Another thread may have applied it while waiting
+                if (!this.pendingRegistrations.remove(pending)) {
+                    continue;
+                }
+
+                try {
+                    changed.addAll(addHandlers(Uninterruptibles.getUninterruptibly(pending.subscribers), pending.container));
+                } catch (ExecutionException e) {
+                    SpongeMod.instance.getLogger().error("Could not register the listener " + pending.object.getClass().getName()
+                            + " of " + pending.container.getId(), e.getCause());
                 }
             }
+            updatePendingEventTypes();
 
-            if (changed) {
-                this.handlersCache.invalidateAll();
+            if (!changed.isEmpty()) {
+                rebakeHandlers(changed);
             }
+        }
+    }
 
-            return changed;
+    /**
+     * Must be called while holding the lock.
+     */
+    private void updatePendingEventTypes() {
+        Set<Class<?>> eventTypes = Sets.newHashSet();
+        for (PendingRegistration pending : this.pendingRegistrations) {
+            eventTypes.addAll(pending.eventTypes);
         }
+        this.pendingEventTypes = eventTypes.isEmpty() ? Collections.<Class<?>>emptySet() : eventTypes;
     }
 
     public boolean unregister(Class<?> type, Handler handler) {
@@ -212,60 +427,72 @@ public class SpongeEventBus implements EventManager {
     }
 
     public boolean unregisterAll(List<Subscriber> subscribers) {
+        flushPendingRegistrations();
+
         synchronized (this.lock) {
-            boolean changed = false;
+            Set<Class<?>> changed = Sets.newHashSet();
 
             for (Subscriber sub : subscribers) {
                 if (this.handlersByEvent.remove(sub.getEventClass(), RegisteredHandler.createForComparison(sub.getHandler()))) {
-                    changed = true;
+                    changed.add(sub.getEventClass());
                 }
             }
 
-            if (changed) {
-                this.handlersCache.invalidateAll();
+            if (!changed.isEmpty()) {
+                rebakeHandlers(changed);
             }
 
-            return changed;
+            return !changed.isEmpty();
         }
     }
 
-    private void callListener(Handler handler, Event event) {
+    private void callListener(RegisteredHandler registration, Event event) {
+        long start = System.nanoTime();
         try {
-            handler.handle(event);
+            registration.getHandler().handle(event);
         } catch (Throwable t) {
+            registration.getTimings().recordException();
             SpongeMod.instance.getLogger().warn("A handler raised an error when handling an event", t);
         }
+        registration.getTimings().record(System.nanoTime() - start);
     }
 
-    public boolean post(net.minecraftforge.fml.common.eventhandler.Event forgeEvent, IEventListener[] listeners) {
-        checkNotNull(forgeEvent, "forgeEvent");
+    /**
+     * Gets the timings of all currently registered handlers.
+     *
+     * @return The handler timings
+     */
+    public List<HandlerTimings> getTimings() {
+        List<HandlerTimings> timings = Lists.newArrayList();
+        synchronized (this.lock) {
+            for (RegisteredHandler registration : this.handlersByEvent.values()) {
+                timings.add(registration.getTimings());
+            }
+        }
+        return timings;
+    }
 
-        Order orderStart = Order.PRE;
-        HandlerCache handlerCache = getHandlerCache(forgeEvent.getClass());
+    /**
+     * Resets the timings of all currently registered handlers.
+     */
+    public void resetTimings() {
+        for (HandlerTimings timings : getTimings()) {
+            timings.reset();
+        }
+    }
 
-        for (IEventListener listener : listeners) {
-            if (listener instanceof EventPriority) {
-                Order order = this.priorityMappings.get(listener);
+    public boolean post(net.minecraftforge.fml.common.eventhandler.Event forgeEvent, IEventListener[] listeners) {
+        checkNotNull(forgeEvent, "forgeEvent");
 
-                for (int orderIndex = 0; orderIndex <= order.ordinal(); orderIndex++) {
-                    Order currentOrder = Order.values()[orderIndex];
-                    for (Handler handler : handlerCache.getHandlersByOrder(currentOrder)) {
-                        callListener(handler, (Event) forgeEvent);
-                    }
+        for (Object entry : getHandlerCache(forgeEvent.getClass()).getForgePlan(listeners).getEntries()) {
+            if (entry instanceof RegisteredHandler) {
+                callListener((RegisteredHandler) entry, (Event) forgeEvent);
+            } else {
+                try {
+                    ((IEventListener) entry).invoke(forgeEvent);
+                } catch (Throwable throwable) {
+                    SpongeMod.instance.getLogger().catching(throwable);
                 }
-                orderStart = Order.values()[order.ordinal() + 1];
-            }
-            try {
-                listener.invoke(forgeEvent);
-            } catch (Throwable throwable) {
-                SpongeMod.instance.getLogger().catching(throwable);
-            }
-        }
-
-        for (int orderIndex = orderStart.ordinal(); orderIndex <= Order.POST.ordinal(); orderIndex++) {
-            Order currentOrder = Order.values()[orderIndex];
-            for (Handler handler : handlerCache.getHandlersByOrder(currentOrder)) {
-                callListener(handler, (Event) forgeEvent);
             }
         }
 
@@ -276,8 +503,8 @@ public class SpongeEventBus implements EventManager {
     public boolean post(Event event) {
         checkNotNull(event, "event");
 
-        for (Handler handler : getHandlerCache(event.getClass()).getHandlers()) {
-            callListener(handler, event);
+        for (RegisteredHandler registration : getHandlerCache(event.getClass()).getHandlers()) {
+            callListener(registration, event);
         }
 
         return event instanceof Cancellable && ((Cancellable) event).isCancelled();
@@ -287,11 +514,26 @@ public class SpongeEventBus implements EventManager {
         checkNotNull(event, "event");
         checkNotNull(event, "order");
 
-        for (Handler handler : getHandlerCache(event.getClass()).getHandlersByOrder(order)) {
-            callListener(handler, event);
+        for (RegisteredHandler registration : getHandlerCache(event.getClass()).getHandlersByOrder(order)) {
+            callListener(registration, event);
         }
 
         return event instanceof Cancellable && ((Cancellable) event).isCancelled();
     }
 
+    private static class PendingRegistration {
+
+        private final PluginContainer container;
+        private final Object object;
+        private final Set<Class<?>> eventTypes;
+        private final Future<List<Subscriber>> subscribers;
+
+        private PendingRegistration(PluginContainer container, Object object, Set<Class<?>> eventTypes, Future<List<Subscriber>> subscribers) {
+            this.container = container;
+            this.object = object;
+            this.eventTypes = eventTypes;
+            this.subscribers = subscribers;
+        }
+    }
+
 }
@@ -33,18 +33,25 @@ class Subscriber {
     private final Class<?> eventClass;
     private final Handler handler;
     private final Order order;
+    private final String name;
 
     Subscriber(Class<?> eventClass, Handler handler) {
         this(eventClass, handler, Order.DEFAULT);
     }
 
     Subscriber(Class<?> eventClass, Handler handler, Order order) {
+        this(eventClass, handler, order, handler.getClass().getName());
+    }
+
+    Subscriber(Class<?> eventClass, Handler handler, Order order, String name) {
         checkNotNull(eventClass, "eventClass");
         checkNotNull(handler, "handler");
         checkNotNull(order, "order");
+        checkNotNull(name, "name");
         this.eventClass = eventClass;
         this.handler = handler;
         this.order = order;
+        this.name = name;
     }
 
     public Class<?> getEventClass() {
@@ -59,4 +66,14 @@ class Subscriber {
         return this.order;
     }
 
+    /**
+     * Gets the name of the listener this subscriber was created from, which
+     * is shown in the event timings.
+     *
+     * @return The listener class and method, or the handler class name
+     */
+    public String getName() {
+        return this.name;
+    }
+
 }
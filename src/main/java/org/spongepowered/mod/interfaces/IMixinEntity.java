@@ -44,5 +44,13 @@ public interface IMixinEntity {
 
     void setActivatedTick(long tick);
 
+    long getActivatedNearTick();
+
+    void setActivatedNearTick(long tick);
+
+    long getImmuneUntilTick();
+
+    void setImmuneUntilTick(long tick);
+
     void inactiveTick();
 }
@@ -24,11 +24,18 @@
  */
 package org.spongepowered.mod.interfaces;
 
+import com.flowpowered.math.vector.Vector3i;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.spongepowered.api.util.gen.ImmutableBlockBuffer;
+import org.spongepowered.api.world.Chunk;
 import org.spongepowered.api.world.gen.GeneratorPopulator;
 import org.spongepowered.api.world.gen.Populator;
 import net.minecraft.world.storage.WorldInfo;
 import org.spongepowered.mod.configuration.SpongeConfig;
+import org.spongepowered.mod.mixin.plugin.entityactivation.WorldTickBudget;
+import org.spongepowered.mod.world.BlockBatch;
 
 public interface IMixinWorld {
 
@@ -42,4 +49,33 @@ public interface IMixinWorld {
 
     void updateWorldGenerator();
 
+    ListenableFuture<Optional<Chunk>> loadChunkAsync(Vector3i position, boolean shouldGenerate);
+
+    /**
+     * Takes an immutable snapshot of the blocks of a loaded chunk. Must be
+     * called on the main thread, the snapshot can then be read from any
+     * thread.
+     *
+     * @param position The position of the chunk
+     * @return The snapshot, or absent if the chunk is not loaded
+     */
+    Optional<ImmutableBlockBuffer> getBlockSnapshot(Vector3i position);
+
+    /**
+     * Creates a batch setting many blocks of this world at once.
+     *
+     * @param applyPhysics Whether blocks and their neighbours are notified
+     *        of the changes
+     * @return The new batch
+     */
+    BlockBatch newBlockBatch(boolean applyPhysics);
+
+    /**
+     * Gets the budget capping the time this world spends ticking entities
+     * and tile entities.
+     *
+     * @return The tick budget
+     */
+    WorldTickBudget getTickBudget();
+
 }
@@ -51,6 +51,7 @@ import org.spongepowered.asm.mixin.injection.Redirect;
 import org.spongepowered.mod.SpongeMod;
 import org.spongepowered.mod.entity.DamageHandler;
 import org.spongepowered.mod.entity.projectile.ProjectileSourceSerializer;
+import org.spongepowered.mod.event.SpongeEventBus;
 import org.spongepowered.mod.interfaces.IMixinEntityFishHook;
 import org.spongepowered.mod.mixin.core.entity.MixinEntity;
 
@@ -106,9 +107,9 @@ public abstract class MixinEntityFishHook extends MixinEntity implements FishHoo
             @At(value = "INVOKE", target = "Lnet/minecraft/entity/Entity;attackEntityFrom(Lnet/minecraft/util/DamageSource;F)Z")
         )
     public boolean onAttackEntityFrom(Entity this$0, DamageSource damageSource, float damage) {
-        PlayerHookedEntityEvent event = SpongeEventFactory.createPlayerHookedEntityEvent(SpongeMod.instance.getGame(), (Player) this.angler, this,
-                (org.spongepowered.api.entity.Entity) this$0);
-        if (!SpongeMod.instance.getGame().getEventManager().post(event)) {
+        SpongeEventBus eventBus = (SpongeEventBus) SpongeMod.instance.getGame().getEventManager();
+        if (!eventBus.hasHandlers(PlayerHookedEntityEvent.class) || !eventBus.post(SpongeEventFactory.createPlayerHookedEntityEvent(
+                SpongeMod.instance.getGame(), (Player) this.angler, this, (org.spongepowered.api.entity.Entity) this$0))) {
             if (this.getShooter() instanceof Entity) {
                 damageSource = DamageHandler.damage(this, (Entity) this.getShooter());
             }
@@ -35,10 +35,11 @@ import org.spongepowered.asm.mixin.Overwrite;
 import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.mod.SpongeMod;
 import org.spongepowered.mod.event.SpongeEventBus;
+import org.spongepowered.mod.interfaces.IMixinEventBus;
 
 @NonnullByDefault
 @Mixin(value = net.minecraftforge.fml.common.eventhandler.EventBus.class, remap = false)
-public abstract class MixinEventBus {
+public abstract class MixinEventBus implements IMixinEventBus {
 
     private EventBus eventBus = (EventBus) (Object) this;
 
@@ -69,4 +70,9 @@ public abstract class MixinEventBus {
         }
     }
 
+    @Override
+    public boolean hasListeners(Event event) {
+        return event.getListenerList().getListeners(this.busID).length > 0;
+    }
+
 }
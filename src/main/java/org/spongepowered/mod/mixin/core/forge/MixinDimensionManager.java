@@ -32,10 +32,15 @@ import org.spongepowered.api.world.storage.WorldProperties;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Overwrite;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.spongepowered.mod.SpongeMod;
 import org.spongepowered.mod.registry.SpongeGameRegistry;
 import org.spongepowered.mod.world.SpongeDimensionType;
+import org.spongepowered.mod.world.storage.RegionRecompressor;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Hashtable;
 
@@ -86,6 +91,15 @@ public abstract class MixinDimensionManager {
         return true;
     }
 
+    @Inject(method = "initDimension", at = @At("HEAD"), cancellable = true)
+    private static void onInitDimension(int dim, CallbackInfo ci) {
+        String worldFolder = SpongeMod.instance.getSpongeRegistry().getWorldFolder(dim);
+        if (worldFolder != null && RegionRecompressor.isRecompressing(new File(DimensionManager.getCurrentSaveRootDirectory(), worldFolder))) {
+            SpongeMod.instance.getLogger().error("Unable to load dimension " + dim + ". Its regions are being recompressed!");
+            ci.cancel();
+        }
+    }
+
     @Overwrite
     public static void unloadWorld(int id) {
         WorldServer world = DimensionManager.getWorld(id);
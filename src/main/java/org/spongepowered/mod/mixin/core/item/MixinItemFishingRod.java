@@ -34,10 +34,12 @@ import net.minecraft.world.World;
 import org.spongepowered.api.entity.player.Player;
 import org.spongepowered.api.entity.projectile.FishHook;
 import org.spongepowered.api.event.SpongeEventFactory;
+import org.spongepowered.api.event.entity.player.fishing.PlayerCastFishingLineEvent;
 import org.spongepowered.api.util.annotation.NonnullByDefault;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Overwrite;
 import org.spongepowered.mod.SpongeMod;
+import org.spongepowered.mod.event.SpongeEventBus;
 import org.spongepowered.mod.interfaces.IMixinEntityFishHook;
 
 @NonnullByDefault
@@ -54,7 +56,8 @@ public abstract class MixinItemFishingRod extends Item implements IMixinEntityFi
             player.fishEntity.handleHookRetraction();
         } else {
             EntityFishHook fishHook = new EntityFishHook(world, player);
-            if (!SpongeMod.instance.getGame().getEventManager()
+            SpongeEventBus eventBus = (SpongeEventBus) SpongeMod.instance.getGame().getEventManager();
+            if (!eventBus.hasHandlers(PlayerCastFishingLineEvent.class) || !eventBus
                     .post(SpongeEventFactory.createPlayerCastFishingLineEvent(SpongeMod.instance.getGame(), (Player) player, (FishHook) fishHook))) {
                 world.playSoundAtEntity(player, "random.bow", 0.5F, 0.4F / (itemRand.nextFloat() * 0.4F + 0.8F));
                 world.spawnEntityInWorld(fishHook);
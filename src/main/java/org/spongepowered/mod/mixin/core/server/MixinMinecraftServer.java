@@ -50,6 +50,7 @@ import org.apache.logging.log4j.Logger;
 import org.spongepowered.api.Server;
 import org.spongepowered.api.entity.player.Player;
 import org.spongepowered.api.event.SpongeEventFactory;
+import org.spongepowered.api.event.world.WorldCreateEvent;
 import org.spongepowered.api.service.permission.PermissionService;
 import org.spongepowered.api.text.Text;
 import org.spongepowered.api.util.Tristate;
@@ -63,25 +64,44 @@ import org.spongepowered.api.world.storage.WorldProperties;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Overwrite;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.Redirect;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.spongepowered.mod.SpongeMod;
+import org.spongepowered.mod.event.SpongeEventBus;
 import org.spongepowered.mod.interfaces.IMixinWorldInfo;
 import org.spongepowered.mod.interfaces.Subjectable;
+import org.spongepowered.mod.service.scheduler.MainThreadExecutor;
 import org.spongepowered.mod.text.SpongeText;
 import org.spongepowered.mod.world.SpongeDimensionType;
+import org.spongepowered.mod.world.storage.AsyncChunkLoader;
+import org.spongepowered.mod.world.storage.AutoSaveScheduler;
+import org.spongepowered.mod.world.storage.LevelDataWriter;
+import org.spongepowered.mod.world.storage.RegionRecompressor;
+import org.spongepowered.mod.world.storage.SpongeChunkLoader;
+import org.spongepowered.mod.world.storage.WorldStorageLoader;
 
 import java.io.File;
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @NonnullByDefault
 @Mixin(MinecraftServer.class)
 public abstract class MixinMinecraftServer implements Server, ConsoleSource, Subjectable {
 
+    // Number of spawn chunks read ahead of the one being attached
+    private static final int SPAWN_PREFETCH_WINDOW = 64;
+    private static final int MAX_WORLD_LOADER_THREADS = 8;
+
     @Shadow private static Logger logger;
     @Shadow public WorldServer[] worldServers;
     @Shadow private ServerConfigurationManager serverConfigManager;
@@ -109,6 +129,31 @@ public abstract class MixinMinecraftServer implements Server, ConsoleSource, Sub
     @Shadow public abstract boolean isServerRunning();
     @Shadow protected abstract void outputPercentRemaining(String message, int percent);
     @Shadow protected abstract void clearCurrentTask();
+    @Shadow protected abstract void saveAllWorlds(boolean dontLog);
+
+    @Inject(method = "tick()V", at = @At("HEAD"))
+    public void onTick(CallbackInfo ci) {
+        MainThreadExecutor.getInstance().drain();
+    }
+
+    @Inject(method = "stopServer()V", at = @At("RETURN"))
+    public void onStopServer(CallbackInfo ci) {
+        // World data is saved off the main thread, make sure it is on disk before the JVM exits
+        SpongeChunkLoader.flush();
+        LevelDataWriter.getInstance().flush();
+        RegionRecompressor.awaitAll();
+    }
+
+    @Redirect(method = "tick()V", at = @At(value = "INVOKE", target = "Lnet/minecraft/server/MinecraftServer;saveAllWorlds(Z)V"))
+    public void onAutoSave(MinecraftServer server, boolean dontLog) {
+        // Lets the worlds spread their chunk saves over the next ticks, see MixinWorldServer
+        AutoSaveScheduler.setAutoSaving(true);
+        try {
+            this.saveAllWorlds(dontLog);
+        } finally {
+            AutoSaveScheduler.setAutoSaving(false);
+        }
+    }
 
     @Overwrite
     protected void loadAllWorlds(String overworldFolder, String unused, long seed, WorldType type, String generator) {
@@ -118,78 +163,96 @@ public abstract class MixinMinecraftServer implements Server, ConsoleSource, Sub
         List<Integer> idList = new LinkedList<Integer>(Arrays.asList(DimensionManager.getStaticDimensionIDs()));
         idList.remove(Integer.valueOf(0));
         idList.add(0, 0); // load overworld first
-        for (int dim : idList) {
-            WorldProvider provider = WorldProvider.getProviderForDimension(dim);
-            String worldFolder = "";
-            if (dim == 0) {
-                worldFolder = overworldFolder;
-            } else {
-                worldFolder = SpongeMod.instance.getSpongeRegistry().getWorldFolder(dim);
-                if (worldFolder != null) {
-                    final Optional<World> optExisting = getWorld(worldFolder);
-                    if (optExisting.isPresent()) {
-                        continue; // world is already loaded
+
+        // Save handlers are created and world info read for every dimension at once, the worlds
+        // are then built one after the other on this thread.
+        List<Integer> dimsToLoad = new ArrayList<Integer>(idList.size());
+        Map<Integer, WorldProvider> providers = new HashMap<Integer, WorldProvider>();
+        Map<Integer, String> worldFolders = new HashMap<Integer, String>();
+        WorldStorageLoader storageLoader = new WorldStorageLoader(Math.min(idList.size(), MAX_WORLD_LOADER_THREADS));
+        try {
+            for (int dim : idList) {
+                WorldProvider provider = WorldProvider.getProviderForDimension(dim);
+                String worldFolder = "";
+                if (dim == 0) {
+                    worldFolder = overworldFolder;
+                } else {
+                    worldFolder = SpongeMod.instance.getSpongeRegistry().getWorldFolder(dim);
+                    if (worldFolder != null) {
+                        final Optional<World> optExisting = getWorld(worldFolder);
+                        if (optExisting.isPresent()) {
+                            continue; // world is already loaded
+                        }
+                    } else {
+                        worldFolder = provider.getSaveFolder();
                     }
+                }
+
+                File savesDirectory;
+                if (FMLCommonHandler.instance().getSide() == Side.CLIENT) {
+                    savesDirectory = dim == 0 ? FMLCommonHandler.instance().getSavesDirectory()
+                            : new File(FMLCommonHandler.instance().getSavesDirectory() + File.separator + getFolderName());
                 } else {
-                    worldFolder = provider.getSaveFolder();
+                    savesDirectory = new File(dim == 0 ? "." : getFolderName());
                 }
+                // Forge and FML data are read along with the overworld's info, so it is read on this thread
+                storageLoader.submit(dim, savesDirectory, worldFolder, dim != 0);
+                dimsToLoad.add(dim);
+                providers.put(dim, provider);
+                worldFolders.put(dim, worldFolder);
             }
 
-            WorldInfo worldInfo = null;
-            WorldSettings newWorldSettings = null;
-            AnvilSaveHandler worldsavehandler = null;
-
-            if (FMLCommonHandler.instance().getSide() == Side.CLIENT) {
-                worldsavehandler =
-                        new AnvilSaveHandler(dim == 0 ? FMLCommonHandler.instance().getSavesDirectory() : new File(FMLCommonHandler.instance().getSavesDirectory() + File.separator
-                                + getFolderName()),
-                                worldFolder, true);
-            } else {
-                worldsavehandler = new AnvilSaveHandler(new File(dim == 0 ? "." : getFolderName()), worldFolder, true);
-            }
-            worldInfo = worldsavehandler.loadWorldInfo();
-            if (worldInfo == null) {
-                newWorldSettings = new WorldSettings(seed, this.getGameType(), this.canStructuresSpawn(), this.isHardcore(), type);
-                newWorldSettings.setWorldName(generator);
+            for (int dim : dimsToLoad) {
+                WorldProvider provider = providers.get(dim);
+                String worldFolder = worldFolders.get(dim);
+                WorldSettings newWorldSettings = null;
+                AnvilSaveHandler worldsavehandler = storageLoader.getSaveHandler(dim);
+                WorldInfo worldInfo = storageLoader.getWorldInfo(dim);
+                if (worldInfo == null) {
+                    newWorldSettings = new WorldSettings(seed, this.getGameType(), this.canStructuresSpawn(), this.isHardcore(), type);
+                    newWorldSettings.setWorldName(generator);
+
+                    if (this.enableBonusChest) {
+                        newWorldSettings.enableBonusChest();
+                    }
 
-                if (this.enableBonusChest) {
-                    newWorldSettings.enableBonusChest();
+                    worldInfo = new WorldInfo(newWorldSettings, worldFolder);
+                    ((IMixinWorldInfo) worldInfo).setUUID(UUID.randomUUID());
+                    if (dim == 0 || dim == -1 || dim == 1) {// if vanilla dimension
+                        ((WorldProperties) worldInfo).setKeepSpawnLoaded(true);
+                        ((WorldProperties) worldInfo).setLoadOnStartup(true);
+                        ((WorldProperties) worldInfo).setEnabled(true);
+                        ((WorldProperties) worldInfo).setGeneratorType(GeneratorTypes.DEFAULT);
+                        SpongeMod.instance.getSpongeRegistry().registerWorldProperties((WorldProperties) worldInfo);
+                    }
+                } else {
+                    worldInfo.setWorldName(worldFolder);
+                    newWorldSettings = new WorldSettings(worldInfo);
                 }
 
-                worldInfo = new WorldInfo(newWorldSettings, worldFolder);
-                ((IMixinWorldInfo) worldInfo).setUUID(UUID.randomUUID());
-                if (dim == 0 || dim == -1 || dim == 1) {// if vanilla dimension
-                    ((WorldProperties) worldInfo).setKeepSpawnLoaded(true);
-                    ((WorldProperties) worldInfo).setLoadOnStartup(true);
-                    ((WorldProperties) worldInfo).setEnabled(true);
-                    ((WorldProperties) worldInfo).setGeneratorType(GeneratorTypes.DEFAULT);
-                    SpongeMod.instance.getSpongeRegistry().registerWorldProperties((WorldProperties) worldInfo);
+                if (dim == 0) {
+                    this.setResourcePackFromWorld(this.getFolderName(), worldsavehandler);
                 }
-            } else {
-                worldInfo.setWorldName(worldFolder);
-                newWorldSettings = new WorldSettings(worldInfo);
-            }
-
-            if (dim == 0) {
-                this.setResourcePackFromWorld(this.getFolderName(), worldsavehandler);
-            }
 
-            ((IMixinWorldInfo) worldInfo).setDimensionId(dim);
-            ((IMixinWorldInfo) worldInfo).setDimensionType(((Dimension) provider).getType());
-            UUID uuid = ((WorldProperties) worldInfo).getUniqueId();
-            SpongeMod.instance.getSpongeRegistry().registerWorldUniqueId(uuid, worldFolder);
+                ((IMixinWorldInfo) worldInfo).setDimensionId(dim);
+                ((IMixinWorldInfo) worldInfo).setDimensionType(((Dimension) provider).getType());
+                UUID uuid = ((WorldProperties) worldInfo).getUniqueId();
+                SpongeMod.instance.getSpongeRegistry().registerWorldUniqueId(uuid, worldFolder);
 
-            WorldServer world = (WorldServer) new WorldServer((MinecraftServer) (Object) this, worldsavehandler, worldInfo, dim,
-                    this.theProfiler).init();
+                WorldServer world = (WorldServer) new WorldServer((MinecraftServer) (Object) this, worldsavehandler, worldInfo, dim,
+                        this.theProfiler).init();
 
-            world.initialize(newWorldSettings);
-            world.addWorldAccess(new WorldManager((MinecraftServer) (Object) this, world));
+                world.initialize(newWorldSettings);
+                world.addWorldAccess(new WorldManager((MinecraftServer) (Object) this, world));
 
-            if (!this.isSinglePlayer()) {
-                world.getWorldInfo().setGameType(this.getGameType());
+                if (!this.isSinglePlayer()) {
+                    world.getWorldInfo().setGameType(this.getGameType());
+                }
+                SpongeMod.instance.getSpongeRegistry().registerWorldProperties((WorldProperties) worldInfo);
+                net.minecraftforge.common.MinecraftForge.EVENT_BUS.post(new net.minecraftforge.event.world.WorldEvent.Load(world));
             }
-            SpongeMod.instance.getSpongeRegistry().registerWorldProperties((WorldProperties) worldInfo);
-            net.minecraftforge.common.MinecraftForge.EVENT_BUS.post(new net.minecraftforge.event.world.WorldEvent.Load(world));
+        } finally {
+            storageLoader.shutdown();
         }
 
         this.serverConfigManager.setPlayerManager(new WorldServer[] {DimensionManager.getWorld(0)});
@@ -215,6 +278,14 @@ public abstract class MixinMinecraftServer implements Server, ConsoleSource, Sub
         logger.info("Preparing start region for level " + world.provider.getDimensionId());
         BlockPos blockpos = world.getSpawnPoint();
         long j = MinecraftServer.getCurrentTimeMillis();
+        long start = System.nanoTime();
+
+        // Chunks are read and decompressed ahead on the chunk I/O threads, while the main thread
+        // attaches or generates them in the vanilla order so the world ends up the same.
+        AsyncChunkLoader loader = AsyncChunkLoader.getInstance();
+        AsyncChunkLoader.Prefetch[] chunks = new AsyncChunkLoader.Prefetch[625];
+        int read = 0;
+        int prefetched = 0;
 
         for (int k = -192; k <= 192 && this.isServerRunning(); k += 16) {
             for (int l = -192; l <= 192 && this.isServerRunning(); l += 16) {
@@ -225,11 +296,24 @@ public abstract class MixinMinecraftServer implements Server, ConsoleSource, Sub
                     j = i1;
                 }
 
+                for (; prefetched < chunks.length && prefetched <= i + SPAWN_PREFETCH_WINDOW; prefetched++) {
+                    int chunkX = blockpos.getX() + (prefetched / 25 - 12) * 16 >> 4;
+                    int chunkZ = blockpos.getZ() + (prefetched % 25 - 12) * 16 >> 4;
+                    chunks[prefetched] = loader.prefetch(world, chunkX, chunkZ);
+                }
+
+                AsyncChunkLoader.Prefetch chunk = chunks[i];
+                chunks[i] = null;
+                chunk.load();
+                if (chunk.isRead()) {
+                    ++read;
+                }
                 ++i;
-                world.theChunkProviderServer.loadChunk(blockpos.getX() + k >> 4, blockpos.getZ() + l >> 4);
             }
         }
 
+        logger.info(String.format("Prepared start region for level %d in %d ms (%d chunks read, %d loaded or generated)",
+                world.provider.getDimensionId(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), read, i - read));
         this.clearCurrentTask();
     }
 
@@ -263,6 +347,10 @@ public abstract class MixinMinecraftServer implements Server, ConsoleSource, Sub
         } else {
             savehandler = new AnvilSaveHandler(new File(getFolderName()), worldName, true);
         }
+        if (RegionRecompressor.isRecompressing(savehandler.getWorldDirectory())) {
+            SpongeMod.instance.getLogger().error("Unable to load world " + worldName + ". Its regions are being recompressed!");
+            return Optional.absent();
+        }
         int dim;
         WorldInfo worldInfo = savehandler.loadWorldInfo();
         if (worldInfo != null) {
@@ -362,8 +450,10 @@ public abstract class MixinMinecraftServer implements Server, ConsoleSource, Sub
         }
         savehandler.saveWorldInfoWithPlayer(worldInfo, getConfigurationManager().getHostPlayerData());
 
-        SpongeMod.instance.getEventManager().post(SpongeEventFactory.createWorldCreate(SpongeMod.instance.getGame(), (WorldProperties)
-                worldInfo, settings));
+        if (((SpongeEventBus) SpongeMod.instance.getEventManager()).hasHandlers(WorldCreateEvent.class)) {
+            SpongeMod.instance.getEventManager().post(SpongeEventFactory.createWorldCreate(SpongeMod.instance.getGame(), (WorldProperties)
+                    worldInfo, settings));
+        }
         return Optional.of((WorldProperties) worldInfo);
     }
 
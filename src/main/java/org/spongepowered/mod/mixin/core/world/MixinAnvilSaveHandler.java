@@ -25,12 +25,16 @@
 package org.spongepowered.mod.mixin.core.world;
 
 import net.minecraft.world.WorldProvider;
-import net.minecraft.world.chunk.storage.AnvilChunkLoader;
 import net.minecraft.world.chunk.storage.IChunkLoader;
 import net.minecraft.world.storage.SaveHandler;
 import org.spongepowered.api.util.annotation.NonnullByDefault;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Overwrite;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.mod.world.storage.MappedRegionCache;
+import org.spongepowered.mod.world.storage.SpongeChunkLoader;
 
 import java.io.File;
 
@@ -49,6 +53,13 @@ public class MixinAnvilSaveHandler extends SaveHandler {
         // we won't be generating a DIMXX folder for chunk loaders since this name is already generated
         // for the world container with provider.getSaveFolder().
         // This allows users to remove our mod and maintain world compatibility.
-        return new AnvilChunkLoader(this.getWorldDirectory());
+        return new SpongeChunkLoader(this.getWorldDirectory());
+    }
+
+    @Inject(method = "flush()V", at = @At("HEAD"))
+    public void onFlush(CallbackInfo ci) {
+        // Write the pending chunks and close the regions, as vanilla does with its region cache
+        SpongeChunkLoader.flush();
+        MappedRegionCache.getInstance().clear();
     }
 }
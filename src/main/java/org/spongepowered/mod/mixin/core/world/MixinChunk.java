@@ -37,6 +37,7 @@ import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 import org.spongepowered.api.util.annotation.NonnullByDefault;
 import org.spongepowered.api.util.gen.BiomeBuffer;
+import org.spongepowered.api.util.gen.ImmutableBlockBuffer;
 import org.spongepowered.api.world.Chunk;
 import org.spongepowered.api.world.gen.GeneratorPopulator;
 import org.spongepowered.asm.mixin.Mixin;
@@ -44,6 +45,7 @@ import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.mod.interfaces.IMixinChunk;
 import org.spongepowered.mod.interfaces.IMixinWorld;
 import org.spongepowered.mod.util.SpongeHooks;
 import org.spongepowered.mod.util.gen.FastChunkBuffer;
@@ -53,7 +55,7 @@ import java.util.List;
 
 @NonnullByDefault
 @Mixin(net.minecraft.world.chunk.Chunk.class)
-public abstract class MixinChunk implements Chunk {
+public abstract class MixinChunk implements Chunk, IMixinChunk {
 
     private Vector3i chunkPos;
     private ChunkCoordIntPair chunkCoordIntPair;
@@ -157,4 +159,9 @@ public abstract class MixinChunk implements Chunk {
     public org.spongepowered.api.world.World getWorld() {
         return (org.spongepowered.api.world.World) this.worldObj;
     }
+
+    @Override
+    public ImmutableBlockBuffer getBlockSnapshot() {
+        return new FastChunkBuffer((net.minecraft.world.chunk.Chunk) (Object) this).getImmutableClone();
+    }
 }
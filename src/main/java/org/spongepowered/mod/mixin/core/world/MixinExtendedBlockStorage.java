@@ -0,0 +1,80 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.mixin.core.world;
+
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import org.spongepowered.api.util.annotation.NonnullByDefault;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.mod.interfaces.IMixinExtendedBlockStorage;
+
+/**
+ * Shares the block data of a section copy-on-write with chunk snapshots.
+ *
+ * <p>The data is only copied by set and {@link #getWritableData}, so the
+ * many callers of getData which only read it do not copy it. Known writers
+ * through getData are redirected to {@link #getWritableData}.</p>
+ */
+@NonnullByDefault
+@Mixin(ExtendedBlockStorage.class)
+public abstract class MixinExtendedBlockStorage implements IMixinExtendedBlockStorage {
+
+    @Shadow private char[] data;
+
+    private boolean dataShared;
+
+    @Override
+    public char[] getSharedData() {
+        this.dataShared = true;
+        return this.data;
+    }
+
+    @Override
+    public char[] getWritableData() {
+        copyIfShared();
+        return this.data;
+    }
+
+    @Inject(method = "set(IIILnet/minecraft/block/state/IBlockState;)V", at = @At("HEAD"))
+    public void onSet(int x, int y, int z, IBlockState state, CallbackInfo ci) {
+        copyIfShared();
+    }
+
+    @Inject(method = "setData([C)V", at = @At("RETURN"))
+    public void onSetData(char[] data, CallbackInfo ci) {
+        this.dataShared = false;
+    }
+
+    private void copyIfShared() {
+        if (this.dataShared) {
+            this.data = this.data.clone();
+            this.dataShared = false;
+        }
+    }
+}
@@ -37,11 +37,11 @@ import org.spongepowered.asm.mixin.Overwrite;
 import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.mod.SpongeMod;
 import org.spongepowered.mod.interfaces.IMixinWorldInfo;
+import org.spongepowered.mod.world.storage.LevelDataWriter;
 
 import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 
 @NonnullByDefault
@@ -76,6 +76,8 @@ public abstract class MixinSaveHandler {
 
     @Overwrite
     public WorldInfo loadWorldInfo() {
+        // Saves of this world still being written would be read back half done
+        LevelDataWriter.getInstance().flush();
         File file1 = new File(this.worldDirectory, "level.dat");
         File file2 = new File(this.worldDirectory, "level.dat_old");
         File spongeFile = new File(this.worldDirectory, "level_sponge.dat");
@@ -137,55 +139,7 @@ public abstract class MixinSaveHandler {
                     nbttagcompound2);
         }
 
-        try {
-            File file1 = new File(this.worldDirectory, "level.dat_new");
-            File file2 = new File(this.worldDirectory, "level.dat_old");
-            File file3 = new File(this.worldDirectory, "level.dat");
-            CompressedStreamTools.writeCompressed(nbttagcompound2, new FileOutputStream(file1));
-
-            if (file2.exists()) {
-                file2.delete();
-            }
-
-            file3.renameTo(file2);
-
-            if (file3.exists()) {
-                file3.delete();
-            }
-
-            file1.renameTo(file3);
-
-            if (file1.exists()) {
-                file1.delete();
-            }
-        } catch (Exception exception) {
-            exception.printStackTrace();
-        }
-
-        try {
-            File spongeFile1 = new File(this.worldDirectory, "level_sponge.dat_new");
-            File spongeFile2 = new File(this.worldDirectory, "level_sponge.dat_old");
-            File spongeFile3 = new File(this.worldDirectory, "level_sponge.dat");
-            CompressedStreamTools.writeCompressed(((IMixinWorldInfo) worldInformation).getSpongeRootLevelNbt(), new FileOutputStream(spongeFile1));
-
-            if (spongeFile2.exists()) {
-                spongeFile2.delete();
-            }
-
-            spongeFile3.renameTo(spongeFile2);
-
-            if (spongeFile3.exists()) {
-                spongeFile3.delete();
-            }
-
-            spongeFile1.renameTo(spongeFile3);
-
-            if (spongeFile1.exists()) {
-                spongeFile1.delete();
-            }
-        } catch (Exception exception) {
-            exception.printStackTrace();
-        }
+        writeLevelData(nbttagcompound2, worldInformation);
     }
 
     @Overwrite
@@ -202,54 +156,15 @@ public abstract class MixinSaveHandler {
                     nbttagcompound1);
         }
 
-        try {
-            File file1 = new File(this.worldDirectory, "level.dat_new");
-            File file2 = new File(this.worldDirectory, "level.dat_old");
-            File file3 = new File(this.worldDirectory, "level.dat");
-            CompressedStreamTools.writeCompressed(nbttagcompound1, new FileOutputStream(file1));
-
-            if (file2.exists()) {
-                file2.delete();
-            }
-
-            file3.renameTo(file2);
-
-            if (file3.exists()) {
-                file3.delete();
-            }
-
-            file1.renameTo(file3);
-
-            if (file1.exists()) {
-                file1.delete();
-            }
-        } catch (Exception exception) {
-            exception.printStackTrace();
-        }
-
-        try {
-            File spongeFile1 = new File(this.worldDirectory, "level_sponge.dat_new");
-            File spongeFile2 = new File(this.worldDirectory, "level_sponge.dat_old");
-            File spongeFile3 = new File(this.worldDirectory, "level_sponge.dat");
-            CompressedStreamTools.writeCompressed(((IMixinWorldInfo) worldInformation).getSpongeRootLevelNbt(), new FileOutputStream(spongeFile1));
-
-            if (spongeFile2.exists()) {
-                spongeFile2.delete();
-            }
-
-            spongeFile3.renameTo(spongeFile2);
-
-            if (spongeFile3.exists()) {
-                spongeFile3.delete();
-            }
-
-            spongeFile1.renameTo(spongeFile3);
+        writeLevelData(nbttagcompound1, worldInformation);
+    }
 
-            if (spongeFile1.exists()) {
-                spongeFile1.delete();
-            }
-        } catch (Exception exception) {
-            exception.printStackTrace();
-        }
+    private void writeLevelData(NBTTagCompound levelData, WorldInfo worldInformation) {
+        // The compounds are written by the level data writer thread, the Sponge data is copied as it
+        // stays attached to the world info.
+        LevelDataWriter writer = LevelDataWriter.getInstance();
+        writer.write(new File(this.worldDirectory, "level.dat"), levelData);
+        writer.write(new File(this.worldDirectory, "level_sponge.dat"),
+                (NBTTagCompound) ((IMixinWorldInfo) worldInformation).getSpongeRootLevelNbt().copy());
     }
 }
@@ -34,6 +34,8 @@ import com.flowpowered.math.vector.Vector3i;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import net.minecraft.network.Packet;
 import net.minecraft.profiler.Profiler;
 import net.minecraft.server.MinecraftServer;
@@ -61,6 +63,7 @@ import org.spongepowered.api.entity.Entity;
 import org.spongepowered.api.entity.EntityType;
 import org.spongepowered.api.service.permission.context.Context;
 import org.spongepowered.api.util.annotation.NonnullByDefault;
+import org.spongepowered.api.util.gen.ImmutableBlockBuffer;
 import org.spongepowered.api.world.Chunk;
 import org.spongepowered.api.world.Dimension;
 import org.spongepowered.api.world.Location;
@@ -86,15 +89,19 @@ import org.spongepowered.mod.SpongeMod;
 import org.spongepowered.mod.configuration.SpongeConfig;
 import org.spongepowered.mod.effect.particle.SpongeParticleEffect;
 import org.spongepowered.mod.effect.particle.SpongeParticleHelper;
+import org.spongepowered.mod.interfaces.IMixinChunk;
 import org.spongepowered.mod.interfaces.IMixinWorld;
 import org.spongepowered.mod.interfaces.IMixinWorldType;
+import org.spongepowered.mod.mixin.plugin.entityactivation.WorldTickBudget;
 import org.spongepowered.mod.util.SpongeHooks;
+import org.spongepowered.mod.world.BlockBatch;
 import org.spongepowered.mod.world.border.PlayerBorderListener;
 import org.spongepowered.mod.world.gen.CustomChunkProviderGenerate;
 import org.spongepowered.mod.world.gen.CustomWorldChunkManager;
 import org.spongepowered.mod.world.gen.SpongeBiomeGenerator;
 import org.spongepowered.mod.world.gen.SpongeGeneratorPopulator;
 import org.spongepowered.mod.world.gen.SpongeWorldGenerator;
+import org.spongepowered.mod.world.storage.AsyncChunkLoader;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -112,6 +119,7 @@ public abstract class MixinWorld implements World, IMixinWorld {
     private volatile Context worldContext;
     private ImmutableList<Populator> populators;
     private ImmutableList<GeneratorPopulator> generatorPopulators;
+    private WorldTickBudget tickBudget;
 
     @Shadow
     public WorldProvider provider;
@@ -218,6 +226,42 @@ public abstract class MixinWorld implements World, IMixinWorld {
         return Optional.fromNullable((Chunk) chunk);
     }
 
+    @Override
+    public ListenableFuture<Optional<Chunk>> loadChunkAsync(Vector3i position, boolean shouldGenerate) {
+        if ((Object) this instanceof WorldServer) {
+            return AsyncChunkLoader.getInstance().loadChunk((WorldServer) (Object) this, position.getX(), position.getZ(), shouldGenerate);
+        }
+
+        // Client worlds can only provide the chunks the server has sent them
+        IChunkProvider chunkProvider = this.getChunkProvider();
+        if (!chunkProvider.chunkExists(position.getX(), position.getZ())) {
+            return Futures.immediateFuture(Optional.<Chunk>absent());
+        }
+        return Futures.immediateFuture(Optional.of((Chunk) chunkProvider.provideChunk(position.getX(), position.getZ())));
+    }
+
+    @Override
+    public Optional<ImmutableBlockBuffer> getBlockSnapshot(Vector3i position) {
+        IChunkProvider chunkProvider = this.getChunkProvider();
+        if (!chunkProvider.chunkExists(position.getX(), position.getZ())) {
+            return Optional.absent();
+        }
+        return Optional.of(((IMixinChunk) chunkProvider.provideChunk(position.getX(), position.getZ())).getBlockSnapshot());
+    }
+
+    @Override
+    public BlockBatch newBlockBatch(boolean applyPhysics) {
+        return new BlockBatch((net.minecraft.world.World) (Object) this, applyPhysics);
+    }
+
+    @Override
+    public WorldTickBudget getTickBudget() {
+        if (this.tickBudget == null) {
+            this.tickBudget = new WorldTickBudget((net.minecraft.world.World) (Object) this);
+        }
+        return this.tickBudget;
+    }
+
     @Override
     public BlockState getBlock(Vector3i position) {
         return getBlock(position.getX(), position.getY(), position.getZ());
@@ -25,23 +25,30 @@
 package org.spongepowered.mod.mixin.core.world;
 
 import net.minecraft.util.BlockPos;
+import net.minecraft.util.IProgressUpdate;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldServer;
 import net.minecraft.world.WorldSettings;
+import net.minecraft.world.chunk.IChunkProvider;
+import net.minecraft.world.gen.ChunkProviderServer;
 import org.spongepowered.api.util.annotation.NonnullByDefault;
 import org.spongepowered.api.world.GeneratorType;
 import org.spongepowered.api.world.GeneratorTypes;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.Redirect;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 import org.spongepowered.mod.interfaces.IMixinWorld;
+import org.spongepowered.mod.world.storage.AutoSaveScheduler;
 
 @NonnullByDefault
 @Mixin(WorldServer.class)
 public abstract class MixinWorldServer extends MixinWorld {
 
+    private AutoSaveScheduler autoSaveScheduler;
+
     @Inject(method = "createSpawnPosition(Lnet/minecraft/world/WorldSettings;)V", at = @At("HEAD"), cancellable = true)
     public void onCreateSpawnPosition(WorldSettings settings, CallbackInfo ci) {
         GeneratorType generatorType = (GeneratorType) settings.getTerrainType();
@@ -58,4 +65,27 @@ public abstract class MixinWorldServer extends MixinWorld {
         IMixinWorld world = (IMixinWorld) ci.getReturnValue();
         world.updateWorldGenerator();
     }
+
+    @Inject(method = "tick()V", at = @At("HEAD"))
+    public void onTick(CallbackInfo ci) {
+        getAutoSaveScheduler().tick();
+    }
+
+    @Redirect(method = "saveAllChunks(ZLnet/minecraft/util/IProgressUpdate;)V", at = @At(value = "INVOKE",
+            target = "Lnet/minecraft/world/chunk/IChunkProvider;saveChunks(ZLnet/minecraft/util/IProgressUpdate;)Z"))
+    public boolean onSaveChunks(IChunkProvider provider, boolean saveAllChunks, IProgressUpdate progressCallback) {
+        AutoSaveScheduler scheduler = getAutoSaveScheduler();
+        if (AutoSaveScheduler.isAutoSaving() && scheduler.getChunksPerTick() > 0 && provider instanceof ChunkProviderServer) {
+            scheduler.queueChunks((ChunkProviderServer) provider);
+            return true;
+        }
+        return provider.saveChunks(saveAllChunks, progressCallback);
+    }
+
+    private AutoSaveScheduler getAutoSaveScheduler() {
+        if (this.autoSaveScheduler == null) {
+            this.autoSaveScheduler = new AutoSaveScheduler((WorldServer) (Object) this);
+        }
+        return this.autoSaveScheduler;
+    }
 }
@@ -43,6 +43,8 @@ public abstract class MixinEntity implements Entity, IMixinEntity {
     public final byte activationType = ActivationRange.initializeEntityActivationType((net.minecraft.entity.Entity) (Object) this);
     public boolean defaultActivationState;
     public long activatedTick = Integer.MIN_VALUE;
+    public long activatedNearTick = Integer.MIN_VALUE;
+    public long immuneUntilTick = Integer.MIN_VALUE;
     private EntityType entityType;
 
     @Shadow
@@ -83,4 +85,24 @@ public abstract class MixinEntity implements Entity, IMixinEntity {
     public void setActivatedTick(long tick) {
         this.activatedTick = tick;
     }
+
+    @Override
+    public long getActivatedNearTick() {
+        return this.activatedNearTick;
+    }
+
+    @Override
+    public void setActivatedNearTick(long tick) {
+        this.activatedNearTick = tick;
+    }
+
+    @Override
+    public long getImmuneUntilTick() {
+        return this.immuneUntilTick;
+    }
+
+    @Override
+    public void setImmuneUntilTick(long tick) {
+        this.immuneUntilTick = tick;
+    }
 }
@@ -31,6 +31,10 @@ import org.spongepowered.asm.mixin.Implements;
 import org.spongepowered.asm.mixin.Interface;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.mod.mixin.plugin.entityactivation.ActivationRange;
 
 @NonnullByDefault
 @Mixin(EntityArrow.class)
@@ -40,6 +44,12 @@ public abstract class MixinEntityArrow extends MixinEntity implements Arrow {
     @Shadow
     private int ticksInGround;
 
+    @Inject(method = "setThrowableHeading", at = @At("RETURN"))
+    public void onSetThrowableHeading(double x, double y, double z, float velocity, float inaccuracy, CallbackInfo ci) {
+        // Arrows in flight keep ticking so they land where they were aimed
+        ActivationRange.grantImmunity((net.minecraft.entity.Entity) (Object) this, 100);
+    }
+
     @Override
     public void inactiveTick() {
         if (this.onGround) {
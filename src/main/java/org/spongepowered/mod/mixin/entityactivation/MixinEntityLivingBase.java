@@ -24,26 +24,95 @@
  */
 package org.spongepowered.mod.mixin.entityactivation;
 
+import net.minecraft.entity.EntityFlying;
 import net.minecraft.entity.EntityLivingBase;
+import net.minecraft.entity.passive.EntityBat;
+import net.minecraft.entity.passive.EntityWaterMob;
+import net.minecraft.util.BlockPos;
+import net.minecraft.util.DamageSource;
+import net.minecraft.util.MathHelper;
 import org.spongepowered.api.entity.living.Living;
 import org.spongepowered.api.util.annotation.NonnullByDefault;
 import org.spongepowered.asm.mixin.Implements;
 import org.spongepowered.asm.mixin.Interface;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+import org.spongepowered.mod.mixin.plugin.entityactivation.ActivationRange;
 
 @NonnullByDefault
 @Mixin(EntityLivingBase.class)
 @Implements(@Interface(iface = Living.class, prefix = "living$"))
 public abstract class MixinEntityLivingBase extends MixinEntity {
 
+    // Horizontal speed below which an entity on the ground is treated as at rest
+    private static final double RESTING_MOTION = 0.003D;
+
     @Shadow
     protected int entityAge;
 
+    @Shadow
+    public int maxHurtResistantTime;
+
+    @Inject(method = "attackEntityFrom", at = @At("HEAD"))
+    public void onAttackEntityFrom(DamageSource source, float amount, CallbackInfoReturnable<Boolean> cir) {
+        // Recently damaged entities keep ticking so knockback and fleeing play out
+        ActivationRange.grantImmunity((net.minecraft.entity.Entity) (Object) this, this.maxHurtResistantTime);
+    }
+
     @Override
     public void inactiveTick() {
         super.inactiveTick();
         ++this.entityAge;
+        catchUpMotion();
+    }
+
+    /**
+     * Moves an entity which is airborne or still moving the way its skipped
+     * tick would have, so distant mobs do not hang mid-fall or mid-knockback.
+     * This follows the gravity and drag of vanilla's moveEntityWithHeading
+     * without steering. Entities at rest on the ground are left alone, which
+     * skips the collision checks of moveEntity for almost all inactive mobs.
+     */
+    private void catchUpMotion() {
+        net.minecraft.entity.Entity entity = (net.minecraft.entity.Entity) (Object) this;
+        if (entity.ridingEntity != null || entity.riddenByEntity != null) {
+            return;
+        }
+        // Flying and water mobs are not pulled down, so they are at rest once they hover in place
+        boolean flying = entity instanceof EntityFlying || entity instanceof EntityBat || entity instanceof EntityWaterMob;
+        if ((this.onGround || flying && Math.abs(entity.motionY) < RESTING_MOTION)
+                && Math.abs(entity.motionX) < RESTING_MOTION && Math.abs(entity.motionZ) < RESTING_MOTION) {
+            return;
+        }
+
+        if (entity.isInWater() || entity.isInLava()) {
+            double drag = entity.isInWater() ? 0.8D : 0.5D;
+            entity.moveEntity(entity.motionX, entity.motionY, entity.motionZ);
+            entity.motionX *= drag;
+            entity.motionY *= drag;
+            entity.motionZ *= drag;
+            if (!flying) {
+                entity.motionY -= 0.02D;
+            }
+            return;
+        }
+
+        float friction = 0.91F;
+        if (this.onGround) {
+            BlockPos below = new BlockPos(MathHelper.floor_double(entity.posX), MathHelper.floor_double(entity.getEntityBoundingBox().minY) - 1,
+                    MathHelper.floor_double(entity.posZ));
+            friction = entity.worldObj.getBlockState(below).getBlock().slipperiness * 0.91F;
+        }
+        entity.moveEntity(entity.motionX, entity.motionY, entity.motionZ);
+        if (!flying) {
+            entity.motionY -= 0.08D;
+        }
+        entity.motionY *= 0.98D;
+        entity.motionX *= friction;
+        entity.motionZ *= friction;
     }
 
 }
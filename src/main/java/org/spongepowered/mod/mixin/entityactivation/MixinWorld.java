@@ -25,6 +25,8 @@
 package org.spongepowered.mod.mixin.entityactivation;
 
 import net.minecraft.profiler.Profiler;
+import net.minecraft.server.gui.IUpdatePlayerListBox;
+import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.MathHelper;
 import net.minecraft.world.ChunkCoordIntPair;
 import net.minecraftforge.common.MinecraftForge;
@@ -36,10 +38,12 @@ import org.spongepowered.asm.mixin.Overwrite;
 import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.Redirect;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.spongepowered.mod.interfaces.IMixinEntity;
 import org.spongepowered.mod.interfaces.IMixinWorld;
 import org.spongepowered.mod.mixin.plugin.entityactivation.ActivationRange;
+import org.spongepowered.mod.mixin.plugin.entityactivation.WorldTickBudget;
 
 @NonnullByDefault
 @Mixin(net.minecraft.world.World.class)
@@ -59,24 +63,62 @@ public abstract class MixinWorld implements World, IMixinWorld {
     private void onInvokeProfiler(CallbackInfo ci) {
         if (!((net.minecraft.world.World) (Object) this).isRemote) {
             ActivationRange.activateEntities(((net.minecraft.world.World) (Object) this));
+            WorldTickBudget.get((net.minecraft.world.World) (Object) this).startEntities();
+        }
+    }
+
+    @Inject(method = "updateEntities()V", at = @At(value = "INVOKE_STRING",
+            target = "Lnet/minecraft/profiler/Profiler;endStartSection(Ljava/lang/String;)V", args = {"ldc=blockEntities"}))
+    private void onStartBlockEntities(CallbackInfo ci) {
+        if (!((net.minecraft.world.World) (Object) this).isRemote) {
+            WorldTickBudget budget = WorldTickBudget.get((net.minecraft.world.World) (Object) this);
+            budget.finishEntities();
+            budget.startTileEntities();
+        }
+    }
+
+    @Inject(method = "updateEntities()V", at = @At(value = "INVOKE_STRING",
+            target = "Lnet/minecraft/profiler/Profiler;endStartSection(Ljava/lang/String;)V", args = {"ldc=pendingBlockEntities"}))
+    private void onStartPendingBlockEntities(CallbackInfo ci) {
+        if (!((net.minecraft.world.World) (Object) this).isRemote) {
+            WorldTickBudget.get((net.minecraft.world.World) (Object) this).finishTileEntities();
+        }
+    }
+
+    @Redirect(method = "updateEntities()V", at = @At(value = "INVOKE", target = "Lnet/minecraft/server/gui/IUpdatePlayerListBox;update()V"))
+    private void onUpdateTileEntity(IUpdatePlayerListBox tickable) {
+        if (((net.minecraft.world.World) (Object) this).isRemote) {
+            tickable.update();
+        } else if (WorldTickBudget.get((net.minecraft.world.World) (Object) this).tryTickTileEntity((TileEntity) tickable)) {
+            ActivationRange.updateTileEntity((TileEntity) tickable);
         }
     }
 
     @Overwrite
     public void updateEntityWithOptionalForce(net.minecraft.entity.Entity entity, boolean forceUpdate) {
+        // Only entities of the regular entity loop are budgeted, riders tick with their mount
+        if (forceUpdate && entity.ridingEntity == null && !((net.minecraft.world.World) (Object) this).isRemote
+                && !WorldTickBudget.get((net.minecraft.world.World) (Object) this).tryTickEntity(entity)) {
+            return;
+        }
+
         int i = MathHelper.floor_double(entity.posX);
         int j = MathHelper.floor_double(entity.posZ);
         boolean isForcedChunk = ((net.minecraft.world.World) (Object) this).getPersistentChunks().containsKey(new ChunkCoordIntPair(i >> 4, j >> 4));
         byte b0 = isForcedChunk ? (byte) 0 : 32;
         boolean canUpdate = !forceUpdate || isAreaLoaded(i - b0, 0, j - b0, i + b0, 0, j + b0, true);
+        boolean forcedByEvent = false;
 
         if (!canUpdate) {
             EntityEvent.CanUpdate event = new EntityEvent.CanUpdate(entity);
             MinecraftForge.EVENT_BUS.post(event);
             canUpdate = event.canUpdate;
+            forcedByEvent = canUpdate;
         }
 
-        if (!isForcedChunk && !canUpdate && !ActivationRange.checkIfActive(entity)) { // ignore if forced by forge event update or entity's chunk
+        // Entities that may not update at all never reach the inactive path,
+        // and those in a Forge-forced chunk or allowed by the event always tick
+        if (canUpdate && forceUpdate && !isForcedChunk && !forcedByEvent && !ActivationRange.checkIfActive(entity)) {
             entity.ticksExisted++;
             ((IMixinEntity) entity).inactiveTick();
             return;
@@ -25,6 +25,8 @@
 package org.spongepowered.mod.mixin.plugin.entityactivation;
 
 import com.google.common.base.Preconditions;
+import gnu.trove.iterator.TLongObjectIterator;
+import gnu.trove.map.hash.TLongObjectHashMap;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EnumCreatureType;
 import net.minecraft.entity.IRangedAttackMob;
@@ -43,9 +45,12 @@ import net.minecraft.entity.passive.EntityWaterMob;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraft.entity.projectile.EntityFireball;
 import net.minecraft.entity.projectile.EntityThrowable;
+import net.minecraft.server.gui.IUpdatePlayerListBox;
+import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.AxisAlignedBB;
 import net.minecraft.util.BlockPos;
 import net.minecraft.util.MathHelper;
+import net.minecraft.world.ChunkCoordIntPair;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldServer;
 import net.minecraft.world.chunk.Chunk;
@@ -53,21 +58,22 @@ import net.minecraftforge.common.util.FakePlayer;
 import org.spongepowered.mod.configuration.SpongeConfig;
 import org.spongepowered.mod.entity.SpongeEntityType;
 import org.spongepowered.mod.interfaces.IMixinEntity;
+import org.spongepowered.mod.interfaces.IMixinTileEntity;
 import org.spongepowered.mod.interfaces.IMixinWorld;
 import org.spongepowered.mod.interfaces.IMixinWorldProvider;
 import org.spongepowered.mod.mixin.plugin.CoreMixinPlugin;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 public class ActivationRange {
 
     static AxisAlignedBB maxBB = AxisAlignedBB.fromBounds(0, 0, 0, 0, 0, 0);
-    static AxisAlignedBB miscBB = AxisAlignedBB.fromBounds(0, 0, 0, 0, 0, 0);
-    static AxisAlignedBB creatureBB = AxisAlignedBB.fromBounds(0, 0, 0, 0, 0, 0);
-    static AxisAlignedBB monsterBB = AxisAlignedBB.fromBounds(0, 0, 0, 0, 0, 0);
-    static AxisAlignedBB aquaticBB = AxisAlignedBB.fromBounds(0, 0, 0, 0, 0, 0);
-    static AxisAlignedBB ambientBB = AxisAlignedBB.fromBounds(0, 0, 0, 0, 0, 0);
+    // The compiled activation settings of each world, replaced when the active config is reloaded
+    private static final Map<World, ActivationTable> activationTables = new WeakHashMap<World, ActivationTable>();
+
     /**
      * Initializes an entities type on construction to specify what group this
      * entity is in for activation ranges.
@@ -146,41 +152,45 @@ public class ActivationRange {
         target.maxZ = source.maxZ + z;
     }
 
+    /**
+     * Gets the compiled activation settings of a world, compiling them again
+     * if the active config changed or was reloaded.
+     *
+     * @param world The world to get the settings for
+     * @return The activation table of the world
+     */
+    static ActivationTable getActivationTable(World world) {
+        SpongeConfig<?> config = getActiveConfig(world);
+        ActivationTable table = activationTables.get(world);
+        if (table == null || !table.isCurrent(config)) {
+            table = new ActivationTable(config);
+            activationTables.put(world, table);
+        }
+        return table;
+    }
+
     /**
      * Find what entities are in range of the players in the world and set
      * active if in range.
      *
+     * <p>Chunks covered by several players are only walked once. The covered
+     * chunks are collected first, each with the players whose activation
+     * range reaches it, and every entity in a chunk is then tested against
+     * just those players.</p>
+     *
      * @param world The world to perform activation checks in
      */
     public static void activateEntities(World world) {
-        SpongeConfig.EntityActivationRangeCategory config = getActiveConfig(world).getConfig().getEntityActivationRange();
-        final int miscActivationRange = config.getMiscActivationRange();
-        final int creatureActivationRange = config.getCreatureActivationRange();
-        final int monsterActivationRange = config.getMonsterActivationRange();
-        final int aquaticActivationRange = config.getAquaticActivationRange();
-        final int ambientActivationRange = config.getAmbientActivationRange();
-
-        int[] ranges = {miscActivationRange, creatureActivationRange, monsterActivationRange, aquaticActivationRange, ambientActivationRange};
-        int maxRange = 0;
-        for (int range : ranges) {
-            if (range > maxRange) {
-                maxRange = range;
-            }
-        }
-
-        maxRange = Math.max(maxRange, miscActivationRange);
-        maxRange = Math.min((6 << 4) - 8, maxRange);
+        ActivationTable table = getActivationTable(world);
+        final int maxRange = table.maxRange;
+        final long currentTick = world.getWorldInfo().getWorldTotalTime();
 
+        TLongObjectHashMap<List<AxisAlignedBB>> coveredChunks = new TLongObjectHashMap<List<AxisAlignedBB>>();
         for (Object entity : world.playerEntities) {
 
             Entity player = (Entity) entity;
-            ((IMixinEntity) player).setActivatedTick(world.getWorldInfo().getWorldTotalTime());
+            ((IMixinEntity) player).setActivatedTick(currentTick);
             growBb(maxBB, player.getEntityBoundingBox(), maxRange, 256, maxRange);
-            growBb(miscBB, player.getEntityBoundingBox(), miscActivationRange, 256, miscActivationRange);
-            growBb(creatureBB, player.getEntityBoundingBox(), creatureActivationRange, 256, creatureActivationRange);
-            growBb(monsterBB, player.getEntityBoundingBox(), monsterActivationRange, 256, monsterActivationRange);
-            growBb(aquaticBB, player.getEntityBoundingBox(), aquaticActivationRange, 256, aquaticActivationRange);
-            growBb(ambientBB, player.getEntityBoundingBox(), ambientActivationRange, 256, ambientActivationRange);
 
             int i = MathHelper.floor_double(maxBB.minX / 16.0D);
             int j = MathHelper.floor_double(maxBB.maxX / 16.0D);
@@ -189,10 +199,28 @@ public class ActivationRange {
 
             for (int i1 = i; i1 <= j; ++i1) {
                 for (int j1 = k; j1 <= l; ++j1) {
-                    WorldServer worldserver = (WorldServer) world;
-                    if (worldserver.theChunkProviderServer.chunkExists(i1, j1)) {
-                        activateChunkEntities(world.getChunkFromChunkCoords(i1, j1));
+                    long key = ChunkCoordIntPair.chunkXZ2Int(i1, j1);
+                    List<AxisAlignedBB> players = coveredChunks.get(key);
+                    if (players == null) {
+                        players = new ArrayList<AxisAlignedBB>(1);
+                        coveredChunks.put(key, players);
                     }
+                    players.add(player.getEntityBoundingBox());
+                }
+            }
+        }
+
+        WorldServer worldserver = (WorldServer) world;
+        TLongObjectIterator<List<AxisAlignedBB>> it = coveredChunks.iterator();
+        while (it.hasNext()) {
+            it.advance();
+            int chunkX = (int) it.key();
+            int chunkZ = (int) (it.key() >> 32);
+            if (worldserver.theChunkProviderServer.chunkExists(chunkX, chunkZ)) {
+                Chunk chunk = world.getChunkFromChunkCoords(chunkX, chunkZ);
+                activateChunkEntities(chunk, it.value(), table, currentTick);
+                if (table.tileTickInterval > 0) {
+                    activateChunkTileEntities(chunk, it.value(), table, currentTick);
                 }
             }
         }
@@ -202,60 +230,97 @@ public class ActivationRange {
      * Checks for the activation state of all entities in this chunk.
      *
      * @param chunk Chunk to check for activation
+     * @param players The bounding boxes of the players whose range covers the chunk
+     * @param table The activation settings of the chunk's world
+     * @param currentTick The total time of the chunk's world
      */
-    @SuppressWarnings("rawtypes")
-    private static void activateChunkEntities(Chunk chunk) {
+    private static void activateChunkEntities(Chunk chunk, List<AxisAlignedBB> players, ActivationTable table, long currentTick) {
         for (int i = 0; i < chunk.getEntityLists().length; ++i) {
 
             for (Object o : chunk.getEntityLists()[i]) {
                 Entity entity = (Entity) o;
-                SpongeConfig<?> config = getActiveConfig(entity.worldObj);
-                // TODO
-                if (config == null) continue;
+                IMixinEntity spongeEntity = (IMixinEntity) entity;
+                if (currentTick <= spongeEntity.getActivatedTick()) {
+                    continue;
+                }
+                if (spongeEntity.getDefaultActivationState()) {
+                    spongeEntity.setActivatedTick(currentTick);
+                    continue;
+                }
+
+                // Types that are not registered or have activation range turned off always stay active
                 SpongeEntityType type = (SpongeEntityType) ((org.spongepowered.api.entity.Entity) entity).getType();
-                if (entity.worldObj.getWorldInfo().getWorldTotalTime() > ((IMixinEntity) entity).getActivatedTick()) {
-                    if (((IMixinEntity) entity).getDefaultActivationState()) {
-                        ((IMixinEntity) entity).setActivatedTick(entity.worldObj.getWorldInfo().getWorldTotalTime());
-                        continue;
-                    }
-                    if (!config.getRootNode().getNode(SpongeConfig.MODULE_ENTITY_ACTIVATION_RANGE, type.getModId(), "enabled").getBoolean()
-                            || !config.getRootNode()
-                            .getNode(SpongeConfig.MODULE_ENTITY_ACTIVATION_RANGE, type.getModId(), "entities", type.getEntityName())
-                            .getBoolean()) {
-                        continue;
-                    }
-                    switch (((IMixinEntity) entity).getActivationType()) {
-                        case 1:
-                            if (monsterBB.intersectsWith(entity.getEntityBoundingBox())) {
-                                ((IMixinEntity) entity).setActivatedTick(entity.worldObj.getWorldInfo().getWorldTotalTime());
-                            }
-                            break;
-                        case 2:
-                            if (creatureBB.intersectsWith(entity.getEntityBoundingBox())) {
-                                ((IMixinEntity) entity).setActivatedTick(entity.worldObj.getWorldInfo().getWorldTotalTime());
-                            }
-                            break;
-                        case 3:
-                            if (aquaticBB.intersectsWith(entity.getEntityBoundingBox())) {
-                                ((IMixinEntity) entity).setActivatedTick(entity.worldObj.getWorldInfo().getWorldTotalTime());
-                            }
-                            break;
-                        case 4:
-                            if (ambientBB.intersectsWith(entity.getEntityBoundingBox())) {
-                                ((IMixinEntity) entity).setActivatedTick(entity.worldObj.getWorldInfo().getWorldTotalTime());
-                            }
-                            break;
-                        case 5:
-                        default:
-                            if (miscBB.intersectsWith(entity.getEntityBoundingBox())) {
-                                ((IMixinEntity) entity).setActivatedTick(entity.worldObj.getWorldInfo().getWorldTotalTime());
-                            }
+                int range = type == null ? ActivationTable.DISABLED : table.getRange(type, spongeEntity.getActivationType());
+                if (range == ActivationTable.DISABLED) {
+                    spongeEntity.setActivatedTick(currentTick);
+                    continue;
+                }
+
+                // Entities out of range but close to a player tick in the near tier
+                AxisAlignedBB entityBB = entity.getEntityBoundingBox();
+                int nearRange = table.getNearRange(range, spongeEntity.getActivationType());
+                boolean near = false;
+                for (int p = 0; p < players.size(); p++) {
+                    AxisAlignedBB playerBB = players.get(p);
+                    if (isInRange(playerBB, entityBB, range)) {
+                        spongeEntity.setActivatedTick(currentTick);
+                        near = false;
+                        break;
                     }
+                    near = near || isInRange(playerBB, entityBB, nearRange);
+                }
+                if (near) {
+                    spongeEntity.setActivatedNearTick(currentTick);
                 }
             }
         }
     }
 
+    /**
+     * Checks for the activation state of all tile entities in this chunk.
+     *
+     * @param chunk Chunk to check for activation
+     * @param players The bounding boxes of the players whose range covers the chunk
+     * @param table The activation settings of the chunk's world
+     * @param currentTick The total time of the chunk's world
+     */
+    private static void activateChunkTileEntities(Chunk chunk, List<AxisAlignedBB> players, ActivationTable table, long currentTick) {
+        for (Object o : chunk.getTileEntityMap().values()) {
+            TileEntity tileEntity = (TileEntity) o;
+            IMixinTileEntity spongeTileEntity = (IMixinTileEntity) tileEntity;
+            int range = table.getTileRange(tileEntity.getClass());
+            if (range == ActivationTable.DISABLED) {
+                continue;
+            }
+
+            BlockPos pos = tileEntity.getPos();
+            for (int p = 0; p < players.size(); p++) {
+                AxisAlignedBB playerBB = players.get(p);
+                if (pos.getX() + 1 > playerBB.minX - range && pos.getX() < playerBB.maxX + range
+                        && pos.getZ() + 1 > playerBB.minZ - range && pos.getZ() < playerBB.maxZ + range) {
+                    spongeTileEntity.setActivatedTick(currentTick);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether an entity is within range of a player, the same as
+     * growing the player's bounding box by the range (and by 256 vertically)
+     * and testing it for intersection, without touching any shared AABB.
+     *
+     * @param playerBB The bounding box of the player
+     * @param entityBB The bounding box of the entity
+     * @param range The horizontal activation range
+     * @return Whether the entity is in range
+     */
+    static boolean isInRange(AxisAlignedBB playerBB, AxisAlignedBB entityBB, int range) {
+        return entityBB.maxX > playerBB.minX - range && entityBB.minX < playerBB.maxX + range
+                && entityBB.maxY > playerBB.minY - 256 && entityBB.minY < playerBB.maxY + 256
+                && entityBB.maxZ > playerBB.minZ - range && entityBB.minZ < playerBB.maxZ + range;
+    }
+
     /**
      * If an entity is not in range, do some more checks to see if we should
      * give it a shot.
@@ -264,7 +329,30 @@ public class ActivationRange {
      * @return Whether entity should still be maintained active
      */
     public static boolean checkEntityImmunities(Entity entity) {
-        return false;
+        // Immunities from events (damage, love mode, arrows in flight) are granted by the
+        // entityactivation mixins when they happen, the rest are vanilla fields.
+        if (((IMixinEntity) entity).getImmuneUntilTick() >= entity.worldObj.getWorldInfo().getWorldTotalTime()) {
+            return true;
+        }
+        return entity.isInWater() || entity.isBurning() || entity.ridingEntity != null || entity.riddenByEntity != null;
+    }
+
+    /**
+     * Keeps an entity ticking for a number of ticks, whatever its distance to
+     * players.
+     *
+     * @param entity The entity to keep active
+     * @param ticks The number of ticks from now the immunity lasts
+     */
+    public static void grantImmunity(Entity entity, int ticks) {
+        if (entity.worldObj == null || entity.worldObj.isRemote) {
+            return;
+        }
+        IMixinEntity spongeEntity = (IMixinEntity) entity;
+        long until = entity.worldObj.getWorldInfo().getWorldTotalTime() + ticks;
+        if (until > spongeEntity.getImmuneUntilTick()) {
+            spongeEntity.setImmuneUntilTick(until);
+        }
     }
 
     /**
@@ -279,18 +367,25 @@ public class ActivationRange {
         }
 
         IMixinEntity spongeEntity = (IMixinEntity) entity;
-        boolean isActive =
-                spongeEntity.getActivatedTick() >= entity.worldObj.getWorldInfo().getWorldTotalTime() || spongeEntity.getDefaultActivationState();
+        final long currentTick = entity.worldObj.getWorldInfo().getWorldTotalTime();
+        boolean isActive = spongeEntity.getActivatedTick() >= currentTick || spongeEntity.getDefaultActivationState();
 
         // Should this entity tick?
         if (!isActive) {
-            if ((entity.worldObj.getWorldInfo().getWorldTotalTime() - spongeEntity.getActivatedTick() - 1) % 20 == 0) {
+            if (spongeEntity.getImmuneUntilTick() >= currentTick) {
+                isActive = true;
+            } else if ((currentTick - spongeEntity.getActivatedTick() - 1) % 20 == 0 && checkEntityImmunities(entity)) {
                 // Check immunities every 20 ticks.
-                if (checkEntityImmunities(entity)) {
-                    // Triggered some sort of immunity, give 20 full ticks before we check again.
-                    spongeEntity.setActivatedTick(entity.worldObj.getWorldInfo().getWorldTotalTime() + 20);
-                }
+                // Triggered some sort of immunity, give 20 full ticks before we check again.
+                spongeEntity.setActivatedTick(currentTick + 20);
                 isActive = true;
+            } else {
+                // Otherwise tick at the rate of the entity's distance tier. Entities are spread
+                // over the interval by id so they do not all tick on the same tick.
+                ActivationTable table = activationTables.get(entity.worldObj);
+                boolean near = spongeEntity.getActivatedNearTick() >= currentTick;
+                int interval = table == null ? 20 : table.getTickInterval(spongeEntity.getActivationType(), near);
+                isActive = interval > 0 && (currentTick + entity.getEntityId()) % interval == 0;
             }
             // Add a little performance juice to active entities. Skip 1/4 if not immune.
         } else if (!spongeEntity.getDefaultActivationState() && entity.ticksExisted % 4 == 0 && !checkEntityImmunities(entity)) {
@@ -307,6 +402,48 @@ public class ActivationRange {
         return isActive;
     }
 
+    /**
+     * Checks if the tile entity is active for this tick.
+     *
+     * <p>Tile entities out of range of every player tick once every
+     * configured interval, spread over the interval by position, and catch
+     * up their counters on the ticks in between.</p>
+     *
+     * @param tileEntity The tile entity to check for activity
+     * @return Whether the given tile entity should be active
+     */
+    public static boolean checkIfActive(TileEntity tileEntity) {
+        World world = tileEntity.getWorld();
+        if (world == null || world.isRemote) {
+            return true;
+        }
+
+        ActivationTable table = activationTables.get(world);
+        if (table == null || table.tileTickInterval == 0) {
+            return true;
+        }
+        final long currentTick = world.getWorldInfo().getWorldTotalTime();
+        if (((IMixinTileEntity) tileEntity).getActivatedTick() >= currentTick
+                || table.getTileRange(tileEntity.getClass()) == ActivationTable.DISABLED) {
+            return true;
+        }
+        return (currentTick + (tileEntity.getPos().hashCode() & Integer.MAX_VALUE)) % table.tileTickInterval == 0;
+    }
+
+    /**
+     * Ticks a tile entity, or catches up its counters if it is not active
+     * for this tick.
+     *
+     * @param tileEntity The tile entity to tick
+     */
+    public static void updateTileEntity(TileEntity tileEntity) {
+        if (checkIfActive(tileEntity)) {
+            ((IUpdatePlayerListBox) tileEntity).update();
+        } else {
+            ((IMixinTileEntity) tileEntity).inactiveTick();
+        }
+    }
+
     public static void addEntityToConfig(World world, SpongeEntityType type, byte activationType) {
         Preconditions.checkNotNull(world, "world");
         Preconditions.checkNotNull(type, "type");
@@ -318,16 +455,7 @@ public class ActivationRange {
         Preconditions.checkNotNull(configs.get(0), "global");
         Preconditions.checkNotNull(configs.get(1), "dimension");
         Preconditions.checkNotNull(configs.get(2), "world");
-        String entityType = "misc";
-        if (activationType == 1) {
-            entityType = "monster";
-        } else if (activationType == 2) {
-            entityType = "creature";
-        } else if (activationType == 3) {
-            entityType = "aquatic";
-        } else if (activationType == 4) {
-            entityType = "ambient";
-        }
+        String entityType = getActivationTypeName(activationType);
 
         for (SpongeConfig<?> config : configs) {
             // TODO
@@ -345,6 +473,21 @@ public class ActivationRange {
         }
     }
 
+    static String getActivationTypeName(byte activationType) {
+        switch (activationType) {
+            case 1:
+                return "monster";
+            case 2:
+                return "creature";
+            case 3:
+                return "aquatic";
+            case 4:
+                return "ambient";
+            default:
+                return "misc";
+        }
+    }
+
     public static SpongeConfig<?> getActiveConfig(World world) {
         SpongeConfig<?> config = ((IMixinWorld) world).getWorldConfig();
         if (config.getConfig().isConfigEnabled()) {
@@ -0,0 +1,178 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.mixin.plugin.entityactivation;
+
+import ninja.leaping.configurate.ConfigurationNode;
+import org.spongepowered.mod.configuration.SpongeConfig;
+import org.spongepowered.mod.entity.SpongeEntityType;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The activation settings of a world, compiled from its active config into
+ * arrays indexed by {@link SpongeEntityType#index} so the activation pass
+ * does not walk config nodes for every entity.
+ *
+ * <p>Entries are compiled the first time a type is seen. A table is never
+ * updated after its config is reloaded; a new table replaces it instead.</p>
+ */
+class ActivationTable {
+
+    static final int DISABLED = -1;
+
+    private static final byte UNKNOWN = 0;
+    private static final byte COMPILED = 1;
+
+    final SpongeConfig<?> config;
+    final int generation;
+    // Settings of each activation type, 1 (monster) through 5 (misc)
+    final int[] activationTypeRanges = new int[6];
+    final int[] nearRangeMultipliers = new int[6];
+    final int[] nearIntervals = new int[6];
+    final int[] farIntervals = new int[6];
+    final int maxRange;
+    // Tile entity settings, tileTickInterval is 0 when tile entities are not throttled
+    final int tileTickInterval;
+    final int tileDefaultRange;
+    private final Map<String, Integer> tileRangeNames;
+
+    private byte[] states = new byte[0];
+    private int[] ranges = new int[0];
+    private final Map<Class<?>, Integer> tileRanges = new HashMap<Class<?>, Integer>();
+
+    ActivationTable(SpongeConfig<?> config) {
+        this.config = config;
+        this.generation = config.getGeneration();
+
+        SpongeConfig.EntityActivationRangeCategory category = config.getConfig().getEntityActivationRange();
+        this.activationTypeRanges[1] = category.getMonsterActivationRange();
+        this.activationTypeRanges[2] = category.getCreatureActivationRange();
+        this.activationTypeRanges[3] = category.getAquaticActivationRange();
+        this.activationTypeRanges[4] = category.getAmbientActivationRange();
+        this.activationTypeRanges[5] = category.getMiscActivationRange();
+        setTickTiers(1, category.getMonsterTickTiers());
+        setTickTiers(2, category.getCreatureTickTiers());
+        setTickTiers(3, category.getAquaticTickTiers());
+        setTickTiers(4, category.getAmbientTickTiers());
+        setTickTiers(5, category.getMiscTickTiers());
+
+        // The activation pass has to reach the edge of the widest near tier
+        int max = 0;
+        for (int i = 1; i < this.activationTypeRanges.length; i++) {
+            max = Math.max(max, this.activationTypeRanges[i] * this.nearRangeMultipliers[i]);
+        }
+
+        SpongeConfig.TileEntityActivationRangeCategory tileCategory = config.getConfig().getTileEntityActivationRange();
+        this.tileTickInterval = tileCategory.isEnabled() ? Math.max(1, tileCategory.getTickInterval()) : 0;
+        this.tileDefaultRange = Math.max(0, tileCategory.getDefaultRange());
+        this.tileRangeNames = new HashMap<String, Integer>(tileCategory.getRanges());
+        if (this.tileTickInterval > 0) {
+            max = Math.max(max, this.tileDefaultRange);
+            for (Integer range : this.tileRangeNames.values()) {
+                max = Math.max(max, range == null ? 0 : range);
+            }
+        }
+        this.maxRange = Math.min((6 << 4) - 8, max);
+    }
+
+    private void setTickTiers(int activationType, SpongeConfig.TickTiersCategory tiers) {
+        this.nearRangeMultipliers[activationType] = Math.max(1, tiers.getNearRangeMultiplier());
+        this.nearIntervals[activationType] = Math.max(1, tiers.getNearInterval());
+        this.farIntervals[activationType] = Math.max(0, tiers.getFarInterval());
+    }
+
+    boolean isCurrent(SpongeConfig<?> activeConfig) {
+        return this.config == activeConfig && this.generation == activeConfig.getGeneration();
+    }
+
+    /**
+     * Gets the activation range of an entity type.
+     *
+     * @param type The entity type
+     * @param activationType The activation type of entities of this type
+     * @return The range, or {@link #DISABLED} if activation range checks are
+     *     turned off for the type
+     */
+    int getRange(SpongeEntityType type, byte activationType) {
+        int index = type.index;
+        if (index >= this.states.length) {
+            int length = Math.max(index + 1, this.states.length * 2);
+            this.states = Arrays.copyOf(this.states, length);
+            this.ranges = Arrays.copyOf(this.ranges, length);
+        }
+        if (this.states[index] == UNKNOWN) {
+            this.ranges[index] = compile(type, activationType);
+            this.states[index] = COMPILED;
+        }
+        return this.ranges[index];
+    }
+
+    private int compile(SpongeEntityType type, byte activationType) {
+        ConfigurationNode modNode = this.config.getRootNode().getNode(SpongeConfig.MODULE_ENTITY_ACTIVATION_RANGE, type.getModId());
+        if (!modNode.getNode("enabled").getBoolean(true)
+                || !modNode.getNode(ActivationRange.getActivationTypeName(activationType), type.getEntityName()).getBoolean(true)) {
+            return DISABLED;
+        }
+        return this.activationTypeRanges[activationType < 1 || activationType > 5 ? 5 : activationType];
+    }
+
+    /**
+     * Gets how often an entity that is not in its activation range ticks.
+     *
+     * @param activationType The activation type of the entity
+     * @param near Whether the entity is in the near tier
+     * @return The interval in ticks, or 0 if the entity should not tick
+     */
+    int getTickInterval(byte activationType, boolean near) {
+        int index = activationType < 1 || activationType > 5 ? 5 : activationType;
+        return near ? this.nearIntervals[index] : this.farIntervals[index];
+    }
+
+    int getNearRange(int range, byte activationType) {
+        return range * this.nearRangeMultipliers[activationType < 1 || activationType > 5 ? 5 : activationType];
+    }
+
+    /**
+     * Gets the activation range of a tile entity class, from its simple name
+     * in the config or the default range if it is not listed.
+     *
+     * @param type The tile entity class
+     * @return The range, or {@link #DISABLED} if the class always ticks
+     */
+    int getTileRange(Class<?> type) {
+        Integer range = this.tileRanges.get(type);
+        if (range == null) {
+            Integer configured = this.tileRangeNames.get(type.getSimpleName());
+            range = configured == null ? this.tileDefaultRange : configured;
+            if (range <= 0) {
+                range = DISABLED;
+            }
+            this.tileRanges.put(type, range);
+        }
+        return range;
+    }
+}
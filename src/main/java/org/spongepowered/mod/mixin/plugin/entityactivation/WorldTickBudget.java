@@ -0,0 +1,212 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.mixin.plugin.entityactivation;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.BlockPos;
+import net.minecraft.world.World;
+import org.spongepowered.mod.configuration.SpongeConfig;
+import org.spongepowered.mod.interfaces.IMixinWorld;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Caps the time a world spends ticking entities and tile entities each
+ * tick.
+ *
+ * <p>Once a pass runs out of time the rest of its list is skipped, and the
+ * next tick resumes from the first one skipped. Vanilla always walks the
+ * lists from the start, so the ones before the resume point are held back
+ * while the loop runs and ticked after it, wrapping around the list.</p>
+ */
+public class WorldTickBudget {
+
+    private final World world;
+    private final Pass<Entity> entities = new Pass<Entity>();
+    private final Pass<TileEntity> tileEntities = new Pass<TileEntity>();
+
+    public WorldTickBudget(World world) {
+        this.world = world;
+    }
+
+    /**
+     * Gets the tick budget of a world.
+     *
+     * @param world The world
+     * @return The tick budget of the world
+     */
+    public static WorldTickBudget get(World world) {
+        return ((IMixinWorld) world).getTickBudget();
+    }
+
+    public void startEntities() {
+        this.entities.start(getWorldCategory().getMaxEntityTickTime());
+    }
+
+    /**
+     * Checks whether an entity of the regular entity loop may tick now.
+     *
+     * @param entity The entity about to tick
+     * @return False if the entity is held back or out of time
+     */
+    public boolean tryTickEntity(Entity entity) {
+        return !this.entities.active || this.entities.tryTick(entity);
+    }
+
+    public void finishEntities() {
+        List<Entity> deferred = this.entities.finish();
+        for (int i = 0; i < deferred.size(); i++) {
+            Entity entity = deferred.get(i);
+            if (this.entities.tryTickDeferred(i) && !entity.isDead && entity.ridingEntity == null) {
+                this.world.updateEntity(entity);
+            }
+        }
+        this.entities.end();
+    }
+
+    public void startTileEntities() {
+        this.tileEntities.start(getWorldCategory().getMaxTileEntityTickTime());
+    }
+
+    /**
+     * Checks whether a tile entity of the tickable tile entity loop may tick
+     * now.
+     *
+     * @param tileEntity The tile entity about to tick
+     * @return False if the tile entity is held back or out of time
+     */
+    public boolean tryTickTileEntity(TileEntity tileEntity) {
+        return !this.tileEntities.active || this.tileEntities.tryTick(tileEntity);
+    }
+
+    public void finishTileEntities() {
+        List<TileEntity> deferred = this.tileEntities.finish();
+        for (int i = 0; i < deferred.size(); i++) {
+            TileEntity tileEntity = deferred.get(i);
+            if (!this.tileEntities.tryTickDeferred(i) || tileEntity.isInvalid() || !tileEntity.hasWorldObj()) {
+                continue;
+            }
+            BlockPos pos = tileEntity.getPos();
+            if (this.world.isBlockLoaded(pos) && this.world.getWorldBorder().contains(pos)) {
+                ActivationRange.updateTileEntity(tileEntity);
+            }
+        }
+        this.tileEntities.end();
+    }
+
+    public long getSkippedEntityCount() {
+        return this.entities.skippedCount;
+    }
+
+    public long getSkippedTileEntityCount() {
+        return this.tileEntities.skippedCount;
+    }
+
+    public long getOverBudgetTickCount() {
+        return this.entities.overBudgetCount + this.tileEntities.overBudgetCount;
+    }
+
+    public void resetMetrics() {
+        this.entities.skippedCount = 0;
+        this.entities.overBudgetCount = 0;
+        this.tileEntities.skippedCount = 0;
+        this.tileEntities.overBudgetCount = 0;
+    }
+
+    private SpongeConfig.WorldCategory getWorldCategory() {
+        return ActivationRange.getActiveConfig(this.world).getConfig().getWorld();
+    }
+
+    /**
+     * One budgeted walk over a list, counting its elements in the order they
+     * are offered.
+     */
+    private static final class Pass<T> {
+
+        private final List<T> deferred = new ArrayList<T>();
+        boolean active;
+        private long deadline;
+        private int ordinal;
+        private int resumeOrdinal;
+        private int nextResumeOrdinal;
+        private boolean exhausted;
+        long skippedCount;
+        long overBudgetCount;
+
+        Pass() {
+        }
+
+        void start(int budgetMillis) {
+            this.deferred.clear();
+            this.exhausted = false;
+            this.active = budgetMillis > 0;
+            if (!this.active) {
+                this.resumeOrdinal = 0;
+                return;
+            }
+            this.deadline = System.nanoTime() + budgetMillis * 1000000L;
+            this.ordinal = 0;
+            this.nextResumeOrdinal = 0;
+        }
+
+        boolean tryTick(T element) {
+            int ordinal = this.ordinal++;
+            if (ordinal < this.resumeOrdinal) {
+                this.deferred.add(element);
+                return false;
+            }
+            return checkBudget(ordinal);
+        }
+
+        List<T> finish() {
+            this.active = false;
+            return this.deferred;
+        }
+
+        boolean tryTickDeferred(int ordinal) {
+            return checkBudget(ordinal);
+        }
+
+        void end() {
+            this.resumeOrdinal = this.exhausted ? this.nextResumeOrdinal : 0;
+            this.deferred.clear();
+        }
+
+        private boolean checkBudget(int ordinal) {
+            if (!this.exhausted && System.nanoTime() > this.deadline) {
+                this.exhausted = true;
+                this.nextResumeOrdinal = ordinal;
+                this.overBudgetCount++;
+            }
+            if (this.exhausted) {
+                this.skippedCount++;
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -25,20 +25,27 @@
 package org.spongepowered.mod.service.scheduler;
 
 import com.google.common.base.Optional;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.spongepowered.api.service.scheduler.AsynchronousScheduler;
 import org.spongepowered.api.service.scheduler.Task;
 import org.spongepowered.mod.SpongeMod;
+import org.spongepowered.mod.configuration.SpongeConfig;
+import org.spongepowered.mod.mixin.plugin.CoreMixinPlugin;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Map;
+import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * <p>
@@ -98,36 +105,58 @@ public class AsyncScheduler implements AsynchronousScheduler {
 
     // The simple private map of all pending (and running) ScheduledTasks
     private final Map<UUID, ScheduledTask> taskMap = new ConcurrentHashMap<UUID, ScheduledTask>();
-    // Adjustable timeout for pending Tasks
-    private long minimumTimeout = Long.MAX_VALUE;
-    private long lastProcessingTimestamp;
-    // Locking mechanism
-    private final Lock lock = new ReentrantLock();
-    private final Condition condition = this.lock.newCondition();
-    // The dynamic thread pooling executor of asynchronous tasks.
-    private ExecutorService executor;
+    // The timer keeps every pending Task in its delay queue and only hands a Task
+    // over to the workers once it is due. It never runs Task bodies itself.
+    private final ScheduledThreadPoolExecutor timer;
+    // The bounded pool of threads running the Task bodies.
+    private final ThreadPoolExecutor workers;
+    // The most Tasks a single plugin may run at once, or 0 for no limit.
+    private final int pluginConcurrency;
+    // Tasks of each plugin that are due but wait for one of the plugin's running Tasks to finish.
+    private final Map<String, PluginQueue> pluginQueues = new ConcurrentHashMap<String, PluginQueue>();
+    // Occurrences of repeating Tasks skipped because the previous occurrence was still running.
+    private final AtomicLong skippedRunCount = new AtomicLong();
     // Query actor for task information
     private SchedulerHelper schedulerHelper;
 
     private AsyncScheduler() {
-        this.schedulerHelper = new SchedulerHelper(ScheduledTask.TaskSynchroncity.ASYNCHRONOUS);
+        this(getMaxThreads(), getPluginConcurrency());
+    }
 
-        new Thread(new Runnable() {
+    AsyncScheduler(int maxThreads, int pluginConcurrency) {
+        this.schedulerHelper = new SchedulerHelper(ScheduledTask.TaskSynchroncity.ASYNCHRONOUS);
+        this.pluginConcurrency = pluginConcurrency;
+        this.timer = new ScheduledThreadPoolExecutor(1,
+                new ThreadFactoryBuilder().setNameFormat("Sponge Async Scheduler Timer").setDaemon(true).build()) {
 
             @Override
-            public void run() {
-                stateMachineBody();
+            protected <V> RunnableScheduledFuture<V> decorateTask(Runnable runnable, RunnableScheduledFuture<V> task) {
+                // Called before the Task is queued, so the Trigger knows its future before it can first run
+                if (runnable instanceof Trigger) {
+                    ((Trigger) runnable).future = task;
+                }
+                return task;
             }
-        }).start();
+        };
+        this.workers = new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactoryBuilder().setNameFormat("Sponge Async Scheduler #%d").setDaemon(true).build());
+        this.workers.allowCoreThreadTimeOut(true);
+    }
+
+    private static int getMaxThreads() {
+        SpongeConfig<SpongeConfig.GlobalConfig> config = CoreMixinPlugin.getGlobalConfig();
+        if (config == null || config.getConfig() == null) {
+            return 8;
+        }
+        return Math.max(1, config.getConfig().getScheduler().getAsyncMaxThreads());
     }
 
-    private void stateMachineBody() {
-        this.executor = Executors.newCachedThreadPool();
-        this.lastProcessingTimestamp = System.currentTimeMillis();
-        while (true) {
-            recalibrateMinimumTimeout();
-            processTasks();
+    private static int getPluginConcurrency() {
+        SpongeConfig<SpongeConfig.GlobalConfig> config = CoreMixinPlugin.getGlobalConfig();
+        if (config == null || config.getConfig() == null) {
+            return 4;
         }
+        return Math.max(0, config.getConfig().getScheduler().getAsyncPluginConcurrency());
     }
 
     private static class AsynchronousSchedulerSingletonHolder {
@@ -156,132 +185,87 @@ public class AsyncScheduler implements AsynchronousScheduler {
         return AsynchronousSchedulerSingletonHolder.INSTANCE;
     }
 
-    private void recalibrateMinimumTimeout() {
-        this.lock.lock();
-        try {
-            for (ScheduledTask task : this.taskMap.values()) {
-                // Tasks may have dropped off the list.
-                // Whatever Tasks remain, recalibrate:
-                //
-                // Recalibrate the wait delay for processing tasks before new tasks
-                // cause the scheduler to process pending tasks.
-                this.minimumTimeout = Long.MAX_VALUE;
-                if (task.offset == 0 && task.period == 0) {
-                    this.minimumTimeout = 0;
-                } else if (task.offset > 0 && task.period == 0) {
-                    // task with non-zero offset, zero period
-                    this.minimumTimeout = Math.min(task.offset, this.minimumTimeout);
-                } else if (task.offset == 0 && task.period > 0) {
-                    // task with zero offset, non-zero period
-                    this.minimumTimeout = Math.min(task.period, this.minimumTimeout);
-                } else if (task.offset > 0 && task.period > 0) {
-                    // task with non-zero offset, non-zero period
-                    this.minimumTimeout = Math.min(task.offset, this.minimumTimeout);
-                    this.minimumTimeout = Math.min(task.period, this.minimumTimeout);
-                }
-            }
-
-            // If no tasks remain, recalibrate to max timeout
-            if (this.taskMap.isEmpty()) {
-                this.minimumTimeout = Long.MAX_VALUE;
-            } else {
-                long latency = System.currentTimeMillis() - this.lastProcessingTimestamp;
-                this.minimumTimeout -= (latency <= 0) ? 0 : latency;
-                this.minimumTimeout = (this.minimumTimeout < 0) ? 0 : this.minimumTimeout;
-            }
-        } finally {
-            this.lock.unlock();
+    /**
+     * <p>
+     * Gets the number of due Tasks waiting for a thread, including Tasks held
+     * back by the per-plugin concurrency limit.
+     * </p>
+     *
+     * @return The number of due Tasks not yet running
+     */
+    public int getQueueDepth() {
+        int depth = this.workers.getQueue().size();
+        for (PluginQueue queue : this.pluginQueues.values()) {
+            depth += queue.size();
         }
+        return depth;
     }
 
-    private void processTasks() {
-        this.lock.lock();
-        try {
-            try {
-                this.condition.await(this.minimumTimeout, TimeUnit.MILLISECONDS);
-            } catch (InterruptedException e) {
-                // The taskMap has been modified; there is work to do.
-                // Continue on without handling the Exception.
-            } catch (IllegalMonitorStateException e) {
-                SpongeMod.instance.getLogger().error(SchedulerLogMessages.CATASTROPHIC_ERROR_IN_SCHEDULER_SEEK_HELP);
-                SpongeMod.instance.getLogger().error(e.toString());
-            }
-
-            // We've locked down the taskMap but the lock is short lived if the size of the
-            // size of the list is zero.
-            //
-            // For each task, inspect the state.
-            //
-            // For the state of CANCELED, remove it and look at the next task, if any.
-            //
-            // For the state of WAITING, the task has not begun, so check the
-            // offset time before starting that task for the first time.
-            //
-            // Else if the task is already RUNNING, use the period (the time delay until
-            // the next moment to run the task).
-            //
-            for (ScheduledTask task : this.taskMap.values()) {
-                // If the task is now slated to be canceled, we just remove it as if it no longer exists.
-                if (task.state == ScheduledTask.ScheduledTaskState.CANCELED) {
-                    this.taskMap.remove(task.getUniqueId());
-                    continue;
-                }
+    /**
+     * <p>
+     * Gets the number of due Tasks of a plugin held back by the per-plugin
+     * concurrency limit.
+     * </p>
+     *
+     * @param pluginId The id of the plugin
+     * @return The number of Tasks waiting for the plugin's running Tasks
+     */
+    public int getQueueDepth(String pluginId) {
+        PluginQueue queue = this.pluginQueues.get(pluginId);
+        return queue == null ? 0 : queue.size();
+    }
 
-                long threshold = Long.MAX_VALUE;
+    /**
+     * <p>
+     * Gets the number of timers waiting in the delay queue, including
+     * repeating Tasks between occurrences.
+     * </p>
+     *
+     * @return The number of pending timers
+     */
+    public int getPendingTimerCount() {
+        return this.timer.getQueue().size();
+    }
 
-                // Figure out if we start a delayed Task after threshold milliseconds or,
-                // start it after the interval (period) of the repeating task parameter.
-                if (task.state == ScheduledTask.ScheduledTaskState.WAITING) {
-                    threshold = task.offset;
-                } else if (task.state == ScheduledTask.ScheduledTaskState.RUNNING) {
-                    threshold = task.period;
-                }
+    /**
+     * <p>
+     * Gets the number of threads currently running a Task.
+     * </p>
+     *
+     * @return The number of busy threads
+     */
+    public int getActiveThreadCount() {
+        return this.workers.getActiveCount();
+    }
 
-                // This moment is 'now'
-                long now = System.currentTimeMillis();
-
-                // So, if the current time minus the timestamp of the task is greater than
-                // the delay to wait before starting the task, then start the task.
-
-                // Repeating tasks get a reset-timestamp each time they are set RUNNING
-                // If the task has a period of 0 (zero) this task will not repeat, and is removed
-                // after we start it.
-
-                if (threshold <= (now - task.timestamp)) {
-                    // startTask is just a utility function within the Scheduler that
-                    // starts the task.
-                    // If the task is not a one time shot then keep it and
-                    // change the timestamp to now.  It is a little more
-                    // efficient to do this now than after starting the task.
-                    task.timestamp = System.currentTimeMillis();
-                    boolean bTaskStarted = startTask(task);
-                    if (bTaskStarted) {
-                        task.setState(ScheduledTask.ScheduledTaskState.RUNNING);
-                        // If task is one time shot, remove it from the list.
-                        if (task.period == 0L) {
-                            this.taskMap.remove(task.getUniqueId());
-                        }
-                    }
-                }
-            }
-            this.lastProcessingTimestamp = System.currentTimeMillis();
-        } finally {
-            this.lock.unlock();
-        }
+    /**
+     * <p>
+     * Gets the number of occurrences of repeating Tasks that were skipped
+     * because the previous occurrence was still running.
+     * </p>
+     *
+     * @return The number of skipped occurrences
+     */
+    public long getSkippedRunCount() {
+        return this.skippedRunCount.get();
     }
 
-    private Optional<Task> utilityForAddingAsyncTask(ScheduledTask task) {
-        Optional<Task> resultTask = Optional.absent();
+    void shutdown() {
+        this.timer.shutdownNow();
+        this.workers.shutdownNow();
+    }
 
+    Optional<Task> utilityForAddingAsyncTask(ScheduledTask task) {
         task.setTimestamp(System.currentTimeMillis());
-        this.lock.lock();
-        try {
-            this.taskMap.put(task.getUniqueId(), task);
-            this.condition.signalAll();
-            resultTask = Optional.of((Task) task);
-        } finally {
-            this.lock.unlock();
+        Optional<Task> resultTask = this.schedulerHelper.utilityForAddingTask(this.taskMap, task);
+
+        Trigger trigger = new Trigger(task);
+        if (task.period == 0L) {
+            this.timer.schedule(trigger, task.offset, TimeUnit.MILLISECONDS);
+        } else {
+            this.timer.scheduleAtFixedRate(trigger, task.offset, task.period, TimeUnit.MILLISECONDS);
         }
+        task.cancelHandler = trigger.canceler;
 
         return resultTask;
     }
@@ -696,18 +680,174 @@ public class AsyncScheduler implements AsynchronousScheduler {
         return this.schedulerHelper.getScheduledTasks(this.taskMap, plugin);
     }
 
-    private boolean startTask(ScheduledTask task) {
-        // We'll succeed unless there's an exception found when we try to start the
-        // actual Runnable target.
-        boolean bRes = true;
+    private void startTask(Trigger trigger) {
+        // The Task body runs on a worker unless the plugin is already running as many
+        // Tasks as it may. It is then queued and started when one of those finishes.
         try {
-            this.executor.submit(task.runnableBody);
+            if (this.pluginConcurrency == 0) {
+                this.workers.execute(trigger.runner);
+            } else if (trigger.pluginQueue.tryAcquire(trigger, this.pluginConcurrency)) {
+                try {
+                    this.workers.execute(trigger.runner);
+                } catch (RuntimeException ex) {
+                    releasePermit(trigger.pluginQueue);
+                    throw ex;
+                }
+            }
         } catch (Exception ex) {
+            trigger.running.set(false);
             SpongeMod.instance.getLogger().error(SchedulerLogMessages.USER_TASK_FAILED_TO_RUN_ERROR);
             SpongeMod.instance.getLogger().error(ex.toString());
-            bRes = false;
+        }
+    }
+
+    private void releasePermit(PluginQueue queue) {
+        // The permit is handed over to the next waiting Task of the plugin, if any
+        Trigger next = queue.release();
+        while (next != null) {
+            try {
+                this.workers.execute(next.runner);
+                return;
+            } catch (Exception ex) {
+                next.running.set(false);
+                SpongeMod.instance.getLogger().error(SchedulerLogMessages.USER_TASK_FAILED_TO_RUN_ERROR);
+                SpongeMod.instance.getLogger().error(ex.toString());
+                next = queue.release();
+            }
+        }
+    }
+
+    private PluginQueue getPluginQueue(ScheduledTask task) {
+        String pluginId = task.owner == null ? "unknown" : task.owner.getId();
+        PluginQueue queue = this.pluginQueues.get(pluginId);
+        if (queue == null) {
+            synchronized (this.pluginQueues) {
+                queue = this.pluginQueues.get(pluginId);
+                if (queue == null) {
+                    queue = new PluginQueue();
+                    this.pluginQueues.put(pluginId, queue);
+                }
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * <p>
+     * Fired by the timer each time a Task is due. Hands the Task over to the
+     * workers unless it was canceled or its previous occurrence is still
+     * running.
+     * </p>
+     */
+    private final class Trigger implements Runnable {
+
+        final ScheduledTask task;
+        final PluginQueue pluginQueue;
+        final AtomicBoolean running = new AtomicBoolean();
+        final Runnable runner = new Runnable() {
+
+            @Override
+            public void run() {
+                runTask();
+            }
+        };
+        final Runnable canceler = new Runnable() {
+
+            @Override
+            public void run() {
+                finish();
+            }
+        };
+        volatile Future<?> future;
+
+        Trigger(ScheduledTask task) {
+            this.task = task;
+            this.pluginQueue = getPluginQueue(task);
+        }
+
+        @Override
+        public void run() {
+            // If the task is now slated to be canceled, we just remove it as if it no longer exists.
+            if (this.task.state == ScheduledTask.ScheduledTaskState.CANCELED) {
+                finish();
+                return;
+            }
+
+            // A repeating task never overlaps itself. The occurrence is skipped and the
+            // timer tries again when the task is next due.
+            if (!this.running.compareAndSet(false, true)) {
+                AsyncScheduler.this.skippedRunCount.incrementAndGet();
+                return;
+            }
+
+            // If task is one time shot, remove it from the map.
+            if (this.task.period == 0L) {
+                AsyncScheduler.this.taskMap.remove(this.task.getUniqueId());
+            }
+
+            this.task.timestamp = System.currentTimeMillis();
+            if (this.task.state == ScheduledTask.ScheduledTaskState.WAITING) {
+                this.task.setState(ScheduledTask.ScheduledTaskState.RUNNING);
+            }
+            startTask(this);
+        }
+
+        void runTask() {
+            try {
+                this.task.runnableBody.run();
+            } catch (Throwable t) {
+                SpongeMod.instance.getLogger().error(SchedulerLogMessages.USER_TASK_FAILED_TO_RUN_ERROR);
+                SpongeMod.instance.getLogger().error(t.toString());
+            } finally {
+                this.running.set(false);
+                if (AsyncScheduler.this.pluginConcurrency != 0) {
+                    releasePermit(this.pluginQueue);
+                }
+            }
+        }
+
+        private void finish() {
+            Future<?> future = this.future;
+            if (future != null) {
+                future.cancel(false);
+                // Leaves the delay queue at once instead of when it would have been due. The
+                // timer's remove-on-cancel policy would do this, but it needs Java 7.
+                AsyncScheduler.this.timer.remove((Runnable) future);
+            }
+            AsyncScheduler.this.taskMap.remove(this.task.getUniqueId());
+        }
+    }
+
+    /**
+     * <p>
+     * Counts the running Tasks of one plugin and holds its due Tasks back,
+     * in order, once the plugin is at its concurrency limit.
+     * </p>
+     */
+    private static final class PluginQueue {
+
+        private final Queue<Trigger> waiting = new ArrayDeque<Trigger>();
+        private int running;
+
+        synchronized boolean tryAcquire(Trigger trigger, int limit) {
+            if (this.running < limit) {
+                this.running++;
+                return true;
+            }
+            this.waiting.add(trigger);
+            return false;
+        }
+
+        synchronized Trigger release() {
+            Trigger next = this.waiting.poll();
+            if (next == null) {
+                this.running--;
+            }
+            return next;
+        }
 
+        synchronized int size() {
+            return this.waiting.size();
         }
-        return bRes;
     }
 }
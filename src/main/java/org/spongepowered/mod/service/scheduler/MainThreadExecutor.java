@@ -0,0 +1,186 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.service.scheduler;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import org.spongepowered.mod.SpongeMod;
+import org.spongepowered.mod.configuration.SpongeConfig;
+import org.spongepowered.mod.mixin.plugin.CoreMixinPlugin;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Executor running work on the main server thread.
+ * </p>
+ *
+ * <p>
+ * Any thread may submit work, which is added to a lock-free queue. The main
+ * thread drains the queue once per tick, at the start of
+ * {@code MinecraftServer.tick}. Unlike
+ * {@link SyncScheduler#runTask(Object, Runnable)}, submitting work does not
+ * create a {@link ScheduledTask}, so this is the cheap way for asynchronous
+ * code to hand a result back to the game.
+ * </p>
+ *
+ * <p>
+ * Work submitted while the queue is drained runs on the next tick. Code on
+ * the main thread must not block on a future returned by
+ * {@link #callSync(Callable)}, as the work can only run once the current tick
+ * has finished.
+ * </p>
+ */
+public class MainThreadExecutor implements Executor {
+
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<Runnable>();
+    // Kept next to the queue since ConcurrentLinkedQueue.size() walks the whole queue.
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile long deferredTickCount = 0L;
+
+    MainThreadExecutor() {
+    }
+
+    private static class MainThreadExecutorSingletonHolder {
+
+        private static final MainThreadExecutor INSTANCE = new MainThreadExecutor();
+    }
+
+    /**
+     * <p>
+     * Returns the instance (handle) to the main thread executor.
+     * </p>
+     *
+     * @return The single main thread executor
+     */
+    public static MainThreadExecutor getInstance() {
+        return MainThreadExecutorSingletonHolder.INSTANCE;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        this.queue.add(checkNotNull(command, "command"));
+        this.pending.incrementAndGet();
+    }
+
+    /**
+     * <p>
+     * Runs the Callable on the main thread during the next tick.
+     * </p>
+     *
+     * @param callable The work to run on the main thread
+     * @param <T> The type of the result
+     * @return A future completed with the result once the work has run
+     */
+    public <T> ListenableFuture<T> callSync(Callable<T> callable) {
+        ListenableFutureTask<T> task = ListenableFutureTask.create(callable);
+        execute(task);
+        return task;
+    }
+
+    /**
+     * <p>
+     * Runs the Runnable on the main thread during the next tick.
+     * </p>
+     *
+     * @param runnable The work to run on the main thread
+     * @return A future completed once the work has run
+     */
+    public ListenableFuture<?> callSync(Runnable runnable) {
+        ListenableFutureTask<Void> task = ListenableFutureTask.create(runnable, null);
+        execute(task);
+        return task;
+    }
+
+    /**
+     * <p>
+     * Gets the amount of work waiting for the main thread.
+     * </p>
+     *
+     * @return The number of queued Runnables
+     */
+    public int getQueueDepth() {
+        return this.pending.get();
+    }
+
+    /**
+     * <p>
+     * Gets the number of ticks on which the budget ran out before the queue
+     * was empty.
+     * </p>
+     *
+     * @return The number of ticks over budget
+     */
+    public long getDeferredTickCount() {
+        return this.deferredTickCount;
+    }
+
+    /**
+     * <p>
+     * Runs the queued work. Called by the main thread once per tick.
+     * </p>
+     */
+    public void drain() {
+        drain(getBudget());
+    }
+
+    void drain(long budget) {
+        // Only the work queued before this point runs now. Anything it submits in
+        // turn waits for the next tick, so the drain always ends.
+        int count = this.pending.get();
+        long deadline = System.nanoTime() + budget;
+        for (int i = 0; i < count; i++) {
+            if (budget > 0 && System.nanoTime() - deadline >= 0) {
+                this.deferredTickCount++;
+                return;
+            }
+            Runnable command = this.queue.poll();
+            if (command == null) {
+                return;
+            }
+            this.pending.decrementAndGet();
+            try {
+                command.run();
+            } catch (Throwable t) {
+                SpongeMod.instance.getLogger().error("Exception running main thread task " + command, t);
+            }
+        }
+    }
+
+    private static long getBudget() {
+        SpongeConfig<SpongeConfig.GlobalConfig> config = CoreMixinPlugin.getGlobalConfig();
+        if (config == null || config.getConfig() == null) {
+            return 0L;
+        }
+        return TimeUnit.MILLISECONDS.toNanos(config.getConfig().getScheduler().getMainThreadBudget());
+    }
+}
@@ -30,6 +30,8 @@ import org.spongepowered.api.service.scheduler.Task;
 
 import java.util.UUID;
 
+import javax.annotation.Nullable;
+
 /**
  * <p>
  * ScheduledTask is an internal representation of a Task created by the Plugin
@@ -47,6 +49,10 @@ public class ScheduledTask implements Task {
     protected UUID id;
     protected String name;
     protected TaskSynchroncity syncType;
+    // Whether the task ignores the synchronous tick budget and always runs on the tick it is due.
+    protected boolean mustRun;
+    // Set by the scheduler of the task to remove it from its queues as soon as it is canceled.
+    @Nullable protected volatile Runnable cancelHandler;
 
     // Internal Task state. Not for user-service use.
     public enum ScheduledTaskState {
@@ -158,6 +164,11 @@ public class ScheduledTask implements Task {
 
         this.state = ScheduledTask.ScheduledTaskState.CANCELED;
 
+        Runnable handler = this.cancelHandler;
+        if (handler != null) {
+            handler.run();
+        }
+
         return bResult;
     }
 
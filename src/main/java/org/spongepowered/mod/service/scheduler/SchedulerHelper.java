@@ -34,7 +34,6 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.UUID;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class SchedulerHelper {
@@ -153,7 +152,7 @@ public class SchedulerHelper {
         Iterator<Task> it = subsetCollection.iterator();
 
         while (it.hasNext()) {
-            String pluginId = ((PluginContainer) it.next()).getId();
+            String pluginId = it.next().getOwner().getId();
 
             if (!testOwnerId.equals(pluginId)) {
                 it.remove();
@@ -214,9 +213,8 @@ public class SchedulerHelper {
         Iterator<Task> it = subsetCollection.iterator();
 
         while (it.hasNext()) {
-            String taskName = ((PluginContainer) it.next()).getName();
-            Matcher matcher = searchPattern.matcher(taskName);
-            if (!matcher.matches()) {
+            Optional<String> taskName = it.next().getName();
+            if (!taskName.isPresent() || !searchPattern.matcher(taskName.get()).matches()) {
                 it.remove();
             }
         }
@@ -30,11 +30,21 @@ import net.minecraftforge.fml.common.gameevent.TickEvent;
 import org.spongepowered.api.service.scheduler.SynchronousScheduler;
 import org.spongepowered.api.service.scheduler.Task;
 import org.spongepowered.mod.SpongeMod;
+import org.spongepowered.mod.configuration.SpongeConfig;
+import org.spongepowered.mod.mixin.plugin.CoreMixinPlugin;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <p>
@@ -45,12 +55,27 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class SyncScheduler implements SynchronousScheduler {
 
-    // The simple queue of all pending (and running) ScheduledTasks
+    // The index of all pending (and running) ScheduledTasks, used for queries by id, name and owner.
     private final Map<UUID, ScheduledTask> taskMap = new ConcurrentHashMap<UUID, ScheduledTask>();
+    // Tasks added since the last tick. Tasks may be scheduled from any thread, so they are handed
+    // over to the main thread here and moved into the due queue at the start of the next tick.
+    private final Queue<ScheduledTask> newTasks = new ConcurrentLinkedQueue<ScheduledTask>();
+    // The tasks waiting to run, ordered by the tick they are next due. Only touched by the main thread.
+    private final PriorityQueue<DueTask> dueQueue = new PriorityQueue<DueTask>();
     // The internal counter of the number of Ticks elapsed since this Scheduler was listening for
     // ServerTickEvent from Forge.
     private volatile long counter = 0L;
+    // Breaks ties between tasks due on the same tick so they run in the order they were queued.
     private long sequenceNumber = 0L;
+    // Tasks canceled since the due queue was last purged of them. Canceled tasks are dropped
+    // when they reach the head of the queue, or all at once when they make up half of it.
+    private final AtomicInteger canceledTaskCount = new AtomicInteger();
+
+    // Metrics for tasks held back by the per-tick budget. Written by the main thread only.
+    private volatile long deferredTaskCount = 0L;
+    private volatile long overBudgetTickCount = 0L;
+    private volatile long slippedTaskCount = 0L;
+    private volatile long maxSlipTicks = 0L;
 
     // Query actor for task information
     private SchedulerHelper schedulerHelper;
@@ -105,6 +130,90 @@ public class SyncScheduler implements SynchronousScheduler {
         return this.schedulerHelper.getScheduledTasks(this.taskMap, plugin);
     }
 
+    /**
+     * <p>
+     * Marks a Task as one that must run on the tick it is due.
+     * </p>
+     *
+     * <p>
+     * Tasks marked this way are exempt from the synchronous tick budget and
+     * are never carried over to a later tick, even when the budget for the
+     * current tick is used up.
+     * </p>
+     *
+     * @param task The Task created by this Scheduler
+     * @param mustRun Whether the Task is exempt from the tick budget
+     * @return True if the Task belongs to this Scheduler and was updated
+     */
+    public boolean setMustRun(Task task, boolean mustRun) {
+        ScheduledTask scheduledTask = this.taskMap.get(task.getUniqueId());
+        if (scheduledTask == null) {
+            return false;
+        }
+        scheduledTask.mustRun = mustRun;
+        return true;
+    }
+
+    /**
+     * <p>
+     * Gets the number of times a due Task was carried over to the next tick
+     * because the tick budget was used up.
+     * </p>
+     *
+     * @return The number of deferrals
+     */
+    public long getDeferredTaskCount() {
+        return this.deferredTaskCount;
+    }
+
+    /**
+     * <p>
+     * Gets the number of ticks on which the tick budget was used up before
+     * every due Task could run.
+     * </p>
+     *
+     * @return The number of ticks over budget
+     */
+    public long getOverBudgetTickCount() {
+        return this.overBudgetTickCount;
+    }
+
+    /**
+     * <p>
+     * Gets the number of Task runs that happened later than the tick they
+     * were due.
+     * </p>
+     *
+     * @return The number of late Task runs
+     */
+    public long getSlippedTaskCount() {
+        return this.slippedTaskCount;
+    }
+
+    /**
+     * <p>
+     * Gets the longest delay, in ticks, between a Task becoming due and
+     * actually running.
+     * </p>
+     *
+     * @return The maximum slip in ticks
+     */
+    public long getMaxSlipTicks() {
+        return this.maxSlipTicks;
+    }
+
+    /**
+     * <p>
+     * Resets the tick budget metrics.
+     * </p>
+     */
+    public void resetMetrics() {
+        this.deferredTaskCount = 0L;
+        this.overBudgetTickCount = 0L;
+        this.slippedTaskCount = 0L;
+        this.maxSlipTicks = 0L;
+    }
+
     private static class SynchronousSchedulerSingletonHolder {
 
         private static final SynchronousScheduler INSTANCE = new SyncScheduler();
@@ -163,61 +272,130 @@ public class SyncScheduler implements SynchronousScheduler {
     }
 
     private void processTasks() {
-        //
-        // For each task, inspect the state.
+        // Move the tasks scheduled since the last tick into the due queue. Their timestamp
+        // was taken when they were added, so the delay (offset) counts from that moment.
+        ScheduledTask added;
+        while ((added = this.newTasks.poll()) != null) {
+            enqueue(added, added.timestamp + Math.max(added.offset, 1L));
+        }
+
+        purgeCanceledTasks();
+
+        // This moment is 'now'
+        long now = this.counter;
+
+        // Only the tasks at the head of the queue that are due on or before this tick are
+        // touched. Everything else waits in the queue without being inspected.
         //
         // For the state of CANCELED, remove it and look at the next task, if any.
         //
-        // For the state of WAITING, the task has not begun, so check the
-        // offset time before starting that task for the first time.
+        // Once the tick budget is used up, due tasks that are not marked as must-run are held
+        // back and carried over to the next tick. They keep their place in the queue, so they
+        // still run before anything that became due later.
         //
-        // Else if the task is already RUNNING, use the period (the time delay until
-        // the next moment to run the task).
-        //
-        for (ScheduledTask task : this.taskMap.values()) {
+        // Otherwise run the task. If the task has a period of 0 (zero) it will not repeat and
+        // is removed after we start it, else it is queued again for (now + period).
+        long budget = getTickBudget();
+        long deadline = System.nanoTime() + budget;
+        List<DueTask> deferred = null;
+        while (!this.dueQueue.isEmpty() && this.dueQueue.peek().dueTick <= now) {
+            DueTask due = this.dueQueue.poll();
+            ScheduledTask task = due.task;
+
             // If the task is now slated to be canceled, we just remove it as if it no longer exists.
             if (task.state == ScheduledTask.ScheduledTaskState.CANCELED) {
                 this.taskMap.remove(task.getUniqueId());
                 continue;
             }
 
-            long threshold = Long.MAX_VALUE;
-
-            // Figure out if we start a delayed Task after threshold ticks or,
-            // start it after the interval (period) of the repeating task parameter.
-            if (task.state == ScheduledTask.ScheduledTaskState.WAITING) {
-                threshold = task.offset;
-            } else if (task.state == ScheduledTask.ScheduledTaskState.RUNNING) {
-                threshold = task.period;
+            if (budget > 0 && !task.mustRun && System.nanoTime() - deadline >= 0) {
+                if (deferred == null) {
+                    deferred = new ArrayList<DueTask>();
+                }
+                deferred.add(due);
+                continue;
             }
 
-            // This moment is 'now'
-            long now = this.counter;
-
-            // So, if the current time minus the timestamp of the task is greater than
-            // the delay to wait before starting the task, then start the task.
-            // Repeating tasks get a reset-timestamp each time they are set RUNNING
-            // If the task has a period of 0 (zero) this task will not repeat, and is removed
-            // after we start it.
-            if (threshold <= (now - task.timestamp)) {
-                // startTask is just a utility function within the Scheduler that
-                // starts the task.
-                // If the task is not a one time shot then keep it and
-                // change the timestamp to now.  It is a little more
-                // efficient to do this now than after starting the task.
-                task.timestamp = this.counter;
-                boolean bTaskStarted = startTask(task);
-                if (bTaskStarted) {
-                    task.setState(ScheduledTask.ScheduledTaskState.RUNNING);
-                    // If task is one time shot, remove it from the map.
-                    if (task.period == 0L) {
-                        this.taskMap.remove(task.getUniqueId());
-                    }
+            if (due.dueTick < now) {
+                long slip = now - due.dueTick;
+                this.slippedTaskCount++;
+                if (slip > this.maxSlipTicks) {
+                    this.maxSlipTicks = slip;
                 }
             }
+
+            task.timestamp = now;
+            boolean bTaskStarted = startTask(task);
+
+            // A task may have canceled itself while it was running.
+            if (task.state == ScheduledTask.ScheduledTaskState.CANCELED) {
+                this.taskMap.remove(task.getUniqueId());
+                continue;
+            }
+
+            if (bTaskStarted) {
+                task.setState(ScheduledTask.ScheduledTaskState.RUNNING);
+            }
+
+            if (bTaskStarted && task.period == 0L) {
+                // If task is one time shot, remove it from the map.
+                this.taskMap.remove(task.getUniqueId());
+            } else {
+                // A task that failed to start is retried after the same threshold it was
+                // waiting on, but never again within this tick.
+                long threshold = task.state == ScheduledTask.ScheduledTaskState.WAITING ? task.offset : task.period;
+                enqueue(task, now + Math.max(threshold, 1L));
+            }
+        }
+
+        if (deferred != null) {
+            this.dueQueue.addAll(deferred);
+            this.deferredTaskCount += deferred.size();
+            this.overBudgetTickCount++;
+        }
+    }
+
+    private static long getTickBudget() {
+        SpongeConfig<SpongeConfig.GlobalConfig> config = CoreMixinPlugin.getGlobalConfig();
+        if (config == null || config.getConfig() == null) {
+            return 0L;
+        }
+        return TimeUnit.MILLISECONDS.toNanos(config.getConfig().getScheduler().getSyncTickBudget());
+    }
+
+    private void purgeCanceledTasks() {
+        int canceled = this.canceledTaskCount.get();
+        if (canceled < 64 || canceled * 2 < this.dueQueue.size()) {
+            return;
+        }
+        this.canceledTaskCount.addAndGet(-canceled);
+        for (Iterator<DueTask> iterator = this.dueQueue.iterator(); iterator.hasNext();) {
+            if (iterator.next().task.state == ScheduledTask.ScheduledTaskState.CANCELED) {
+                iterator.remove();
+            }
         }
     }
 
+    private void enqueue(ScheduledTask task, long dueTick) {
+        this.dueQueue.add(new DueTask(task, dueTick, this.sequenceNumber++));
+    }
+
+    private Optional<Task> utilityForAddingSyncTask(final ScheduledTask task) {
+        task.setTimestamp(this.counter);
+        Optional<Task> resultTask = this.schedulerHelper.utilityForAddingTask(this.taskMap, task);
+        // Canceled tasks leave the index at once, the due queue drops them lazily
+        task.cancelHandler = new Runnable() {
+
+            @Override
+            public void run() {
+                SyncScheduler.this.taskMap.remove(task.getUniqueId());
+                SyncScheduler.this.canceledTaskCount.incrementAndGet();
+            }
+        };
+        this.newTasks.add(task);
+        return resultTask;
+    }
+
     /**
      * <p>
      * Runs a Task once immediately.
@@ -265,7 +443,7 @@ public class SyncScheduler implements SynchronousScheduler {
         if (nonRepeatingTask == null) {
             SpongeMod.instance.getLogger().warn(SchedulerLogMessages.CANNOT_MAKE_TASK_WARNING);
         } else {
-            resultTask = this.schedulerHelper.utilityForAddingTask(this.taskMap, nonRepeatingTask);
+            resultTask = utilityForAddingSyncTask(nonRepeatingTask);
         }
 
         return resultTask;
@@ -319,7 +497,7 @@ public class SyncScheduler implements SynchronousScheduler {
         if (nonRepeatingTask == null) {
             SpongeMod.instance.getLogger().warn(SchedulerLogMessages.CANNOT_MAKE_TASK_WARNING);
         } else {
-            resultTask = this.schedulerHelper.utilityForAddingTask(this.taskMap, nonRepeatingTask);
+            resultTask = utilityForAddingSyncTask(nonRepeatingTask);
         }
 
         return resultTask;
@@ -389,7 +567,7 @@ public class SyncScheduler implements SynchronousScheduler {
         if (repeatingTask == null) {
             SpongeMod.instance.getLogger().warn(SchedulerLogMessages.CANNOT_MAKE_TASK_WARNING);
         } else {
-            resultTask = this.schedulerHelper.utilityForAddingTask(this.taskMap, repeatingTask);
+            resultTask = utilityForAddingSyncTask(repeatingTask);
         }
 
         return resultTask;
@@ -459,7 +637,7 @@ public class SyncScheduler implements SynchronousScheduler {
         if (repeatingTask == null) {
             SpongeMod.instance.getLogger().warn(SchedulerLogMessages.CANNOT_MAKE_TASK_WARNING);
         } else {
-            resultTask = this.schedulerHelper.utilityForAddingTask(this.taskMap, repeatingTask);
+            resultTask = utilityForAddingSyncTask(repeatingTask);
         }
 
         return resultTask;
@@ -481,4 +659,31 @@ public class SyncScheduler implements SynchronousScheduler {
         }
         return bRes;
     }
+
+    /**
+     * <p>
+     * An entry in the due queue: a task together with the tick it is next
+     * due to run.
+     * </p>
+     */
+    private static final class DueTask implements Comparable<DueTask> {
+
+        final ScheduledTask task;
+        final long dueTick;
+        final long sequence;
+
+        DueTask(ScheduledTask task, long dueTick, long sequence) {
+            this.task = task;
+            this.dueTick = dueTick;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(DueTask other) {
+            if (this.dueTick != other.dueTick) {
+                return this.dueTick < other.dueTick ? -1 : 1;
+            }
+            return this.sequence < other.sequence ? -1 : (this.sequence == other.sequence ? 0 : 1);
+        }
+    }
 }
@@ -34,6 +34,7 @@ import org.spongepowered.api.event.server.StatusPingEvent;
 import org.spongepowered.api.status.StatusClient;
 import org.spongepowered.api.status.StatusResponse;
 import org.spongepowered.mod.SpongeMod;
+import org.spongepowered.mod.event.SpongeEventBus;
 import org.spongepowered.mod.text.SpongeText;
 
 import java.net.InetSocketAddress;
@@ -61,6 +62,9 @@ public final class SpongeStatusResponse {
     }
 
     private static ServerStatusResponse call(ServerStatusResponse response, StatusClient client) {
+        if (!((SpongeEventBus) SpongeMod.instance.getGame().getEventManager()).hasHandlers(StatusPingEvent.class)) {
+            return response;
+        }
         if (!SpongeMod.instance.getGame().getEventManager().post(SpongeEventFactory.createStatusPing(SpongeMod.instance.getGame(), client,
                 (StatusPingEvent.Response) response))) {
             return response;
@@ -44,6 +44,7 @@ import net.minecraft.world.gen.ChunkProviderServer;
 import net.minecraftforge.common.DimensionManager;
 import org.spongepowered.api.block.BlockState;
 import org.spongepowered.mod.configuration.SpongeConfig;
+import org.spongepowered.mod.event.HandlerTimings;
 import org.spongepowered.mod.interfaces.IMixinWorld;
 import org.spongepowered.mod.interfaces.IMixinWorldProvider;
 import org.spongepowered.mod.mixin.plugin.CoreMixinPlugin;
@@ -59,7 +60,9 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import javax.management.MBeanServer;
 
@@ -70,6 +73,15 @@ public class SpongeHooks {
 
     private static TObjectLongHashMap<CollisionWarning> recentWarnings = new TObjectLongHashMap<CollisionWarning>();
 
+    public static final Comparator<HandlerTimings> HANDLER_TIMINGS_COMPARATOR = new Comparator<HandlerTimings>() {
+
+        @Override
+        public int compare(HandlerTimings t1, HandlerTimings t2) {
+            long diff = t2.getTotalNanos() - t1.getTotalNanos();
+            return diff > 0 ? 1 : diff < 0 ? -1 : 0;
+        }
+    };
+
     public static void logInfo(String msg, Object... args) {
         MinecraftServer.getServer().logInfo(MessageFormat.format(msg, args));
     }
@@ -383,6 +395,62 @@ public class SpongeHooks {
         writer.endArray();
     }
 
+    public static void writeEventTimings(File file, List<HandlerTimings> timings) {
+        try {
+            if (file.getParentFile() != null) {
+                file.getParentFile().mkdirs();
+            }
+
+            Map<String, List<HandlerTimings>> byPlugin = new TreeMap<String, List<HandlerTimings>>();
+            for (HandlerTimings handlerTimings : timings) {
+                String pluginId = handlerTimings.getPlugin() == null ? "unknown" : handlerTimings.getPlugin().getId();
+                List<HandlerTimings> pluginTimings = byPlugin.get(pluginId);
+                if (pluginTimings == null) {
+                    pluginTimings = new ArrayList<HandlerTimings>();
+                    byPlugin.put(pluginId, pluginTimings);
+                }
+                pluginTimings.add(handlerTimings);
+            }
+
+            FileWriter fileWriter = new FileWriter(file);
+            JsonWriter writer = new JsonWriter(fileWriter);
+            writer.setIndent("  ");
+            writer.beginArray();
+
+            for (Map.Entry<String, List<HandlerTimings>> entry : byPlugin.entrySet()) {
+                List<HandlerTimings> pluginTimings = entry.getValue();
+                Collections.sort(pluginTimings, HANDLER_TIMINGS_COMPARATOR);
+
+                long totalNanos = 0;
+                for (HandlerTimings handlerTimings : pluginTimings) {
+                    totalNanos += handlerTimings.getTotalNanos();
+                }
+
+                writer.beginObject();
+                writer.name("plugin").value(entry.getKey());
+                writer.name("totalNanos").value(totalNanos);
+                writer.name("handlers").beginArray();
+                for (HandlerTimings handlerTimings : pluginTimings) {
+                    writer.beginObject();
+                    writer.name("event").value(handlerTimings.getEventClass().getName());
+                    writer.name("handler").value(handlerTimings.getHandlerName());
+                    writer.name("calls").value(handlerTimings.getCalls());
+                    writer.name("totalNanos").value(handlerTimings.getTotalNanos());
+                    writer.name("maxNanos").value(handlerTimings.getMaxNanos());
+                    writer.name("exceptions").value(handlerTimings.getExceptions());
+                    writer.endObject();
+                }
+                writer.endArray(); // Handlers
+                writer.endObject(); // Plugin
+            }
+            writer.endArray(); // Plugins
+            writer.close();
+            fileWriter.close();
+        } catch (Throwable throwable) {
+            logSevere("Could not save event timings report to {0}", file);
+        }
+    }
+
     @SuppressWarnings({"rawtypes", "unchecked"})
     public static void dumpHeap(File file, boolean live) {
         try {
@@ -68,8 +68,21 @@ public final class ChunkPrimerBuffer extends AbstractChunkBuffer {
 
     @Override
     public ImmutableBlockBuffer getImmutableClone() {
-        // TODO implement
-        throw new UnsupportedOperationException("Not yet supported");
+        // The primer is indexed by x << 12 | z << 8 | y, sections by y << 8 | z << 4 | x
+        short[] data = this.chunkPrimer.data;
+        char[][] sections = new char[16][];
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] == 0) {
+                continue;
+            }
+            int y = i & 0xff;
+            char[] section = sections[y >> 4];
+            if (section == null) {
+                sections[y >> 4] = section = new char[4096];
+            }
+            section[(y & 0xf) << 8 | (i >> 8 & 0xf) << 4 | (i >> 12 & 0xf)] = (char) data[i];
+        }
+        return new CharArrayImmutableChunkBuffer(sections, getBlockMin().getX() >> 4, getBlockMin().getZ() >> 4);
     }
 
     @Override
@@ -32,6 +32,7 @@ import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
 import org.spongepowered.api.block.BlockState;
 import org.spongepowered.api.block.BlockTypes;
 import org.spongepowered.api.util.gen.ImmutableBlockBuffer;
+import org.spongepowered.mod.interfaces.IMixinExtendedBlockStorage;
 
 import java.util.Arrays;
 
@@ -109,15 +110,22 @@ public final class FastChunkBuffer extends AbstractChunkBuffer {
             if (section == null) {
                 this.sectionArray[ySectionId] = section = createChunkSection(ySectionId);
             }
-            char[] data = section.getData();
+            char[] data = ((IMixinExtendedBlockStorage) section).getWritableData();
             Arrays.fill(data, blockStateId);
         }
     }
 
     @Override
     public ImmutableBlockBuffer getImmutableClone() {
-        // TODO implement
-        throw new UnsupportedOperationException("Not yet supported");
+        // Sections copy their data when next changed, so the clone shares it
+        char[][] sections = new char[this.sectionArray.length][];
+        for (int ySectionId = 0; ySectionId < this.sectionArray.length; ySectionId++) {
+            ExtendedBlockStorage section = this.sectionArray[ySectionId];
+            if (section != null) {
+                sections[ySectionId] = ((IMixinExtendedBlockStorage) section).getSharedData();
+            }
+        }
+        return new CharArrayImmutableChunkBuffer(sections, this.chunk.xPosition, this.chunk.zPosition);
     }
 
 }
@@ -0,0 +1,266 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.world;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.flowpowered.math.vector.Vector3i;
+import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.BlockPos;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.EnumSkyBlock;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import net.minecraftforge.common.ForgeModContainer;
+import org.spongepowered.api.block.BlockState;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sets many blocks of a world at once.
+ *
+ * <p>Blocks are collected with {@link #setBlock} and written by
+ * {@link #apply} straight into the chunk sections, as a chunk buffer does,
+ * instead of one {@link World#setBlockState} each:</p>
+ *
+ * <ul><li>Height maps and sky light are computed once per chunk, and the
+ * chunk is marked to have its light rechecked by its next tick. Block light
+ * is only rechecked where a light source was placed or removed, or where the
+ * opacity changed next to block light.</li>
+ * <li>Watching players get one packet per chunk, the changed blocks or the
+ * changed sections once there are too many blocks.</li>
+ * <li>Without physics, blocks are not notified of being added or broken and
+ * neighbours are not notified of changes. Tile entities are always removed
+ * and created as the blocks require.</li></ul>
+ *
+ * <p>A batch is not thread safe. It may be filled on any thread, but must be
+ * applied on the main thread.</p>
+ */
+public class BlockBatch {
+
+    private final World world;
+    private final boolean applyPhysics;
+    private final Map<Long, ChunkChanges> chunks = new LinkedHashMap<Long, ChunkChanges>();
+
+    public BlockBatch(World world, boolean applyPhysics) {
+        this.world = world;
+        this.applyPhysics = applyPhysics;
+    }
+
+    public void setBlock(Vector3i position, BlockState state) {
+        setBlock(position.getX(), position.getY(), position.getZ(), state);
+    }
+
+    /**
+     * Queues a block to be set when the batch is applied. Setting a block
+     * again replaces the queued state.
+     *
+     * @param x The x coordinate
+     * @param y The y coordinate, from 0 to 255
+     * @param z The z coordinate
+     * @param state The block state to set
+     */
+    public void setBlock(int x, int y, int z, BlockState state) {
+        checkArgument(y >= 0 && y < 256, "y must be from 0 to 255: %s", y);
+        checkArgument(state instanceof IBlockState, "Custom BlockState implementations are not supported: %s", state);
+        long key = ChunkCoordIntPair.chunkXZ2Int(x >> 4, z >> 4);
+        ChunkChanges changes = this.chunks.get(key);
+        if (changes == null) {
+            changes = new ChunkChanges(x >> 4, z >> 4);
+            this.chunks.put(key, changes);
+        }
+        IBlockState[] section = changes.sections[y >> 4];
+        if (section == null) {
+            changes.sections[y >> 4] = section = new IBlockState[4096];
+        }
+        section[(y & 0xf) << 8 | (z & 0xf) << 4 | (x & 0xf)] = (IBlockState) state;
+    }
+
+    /**
+     * Gets the number of chunks with queued blocks.
+     *
+     * @return The number of chunks
+     */
+    public int getChunkCount() {
+        return this.chunks.size();
+    }
+
+    /**
+     * Writes the queued blocks to the world, loading or generating the chunks
+     * they are in, and clears the batch.
+     *
+     * @return The number of blocks which changed
+     */
+    public int apply() {
+        int changed = 0;
+        List<BlockPos> changedPositions = new ArrayList<BlockPos>();
+        List<IBlockState> oldStates = new ArrayList<IBlockState>();
+        for (ChunkChanges changes : this.chunks.values()) {
+            changedPositions.clear();
+            oldStates.clear();
+            Chunk chunk = this.world.getChunkFromChunkCoords(changes.x, changes.z);
+            applyToChunk(chunk, changes, changedPositions, oldStates);
+            if (changedPositions.isEmpty()) {
+                continue;
+            }
+            changed += changedPositions.size();
+
+            chunk.generateSkylightMap();
+            chunk.setLightPopulated(false);
+            chunk.setModified(true);
+            for (int i = 0; i < changedPositions.size(); i++) {
+                BlockPos pos = changedPositions.get(i);
+                Block oldBlock = oldStates.get(i).getBlock();
+                Block newBlock = chunk.getBlock(pos);
+                if (oldBlock.getLightValue() != newBlock.getLightValue()
+                        || oldBlock.getLightOpacity() != newBlock.getLightOpacity() && isNearBlockLight(pos)) {
+                    this.world.checkLightFor(EnumSkyBlock.BLOCK, pos);
+                }
+            }
+            markForUpdate(changedPositions);
+            if (this.applyPhysics) {
+                for (BlockPos pos : changedPositions) {
+                    this.world.notifyNeighborsRespectDebug(pos, chunk.getBlock(pos));
+                }
+            }
+        }
+        this.chunks.clear();
+        return changed;
+    }
+
+    private void applyToChunk(Chunk chunk, ChunkChanges changes, List<BlockPos> changedPositions, List<IBlockState> oldStates) {
+        ExtendedBlockStorage[] storageArray = chunk.getBlockStorageArray();
+        int baseX = changes.x << 4;
+        int baseZ = changes.z << 4;
+        for (int sectionY = 0; sectionY < changes.sections.length; sectionY++) {
+            IBlockState[] section = changes.sections[sectionY];
+            if (section == null) {
+                continue;
+            }
+            for (int index = 0; index < section.length; index++) {
+                IBlockState state = section[index];
+                if (state == null) {
+                    continue;
+                }
+                int x = index & 0xf;
+                int y = index >> 8;
+                int z = index >> 4 & 0xf;
+                ExtendedBlockStorage storage = storageArray[sectionY];
+                if (storage == null) {
+                    if (state.getBlock() == Blocks.air) {
+                        continue;
+                    }
+                    storageArray[sectionY] = storage = new ExtendedBlockStorage(sectionY << 4, !this.world.provider.getHasNoSky());
+                }
+                IBlockState oldState = storage.get(x, y, z);
+                if (oldState == state) {
+                    continue;
+                }
+                BlockPos pos = new BlockPos(baseX + x, (sectionY << 4) + y, baseZ + z);
+                Block oldBlock = oldState.getBlock();
+                Block block = state.getBlock();
+                if (this.applyPhysics && oldBlock != block) {
+                    oldBlock.breakBlock(this.world, pos, oldState);
+                }
+                if (oldBlock != block && oldBlock.hasTileEntity(oldState)) {
+                    this.world.removeTileEntity(pos);
+                }
+
+                storage.set(x, y, z, state);
+
+                if (this.applyPhysics && oldBlock != block) {
+                    block.onBlockAdded(this.world, pos, state);
+                }
+                if (block.hasTileEntity(state)) {
+                    TileEntity tileEntity = chunk.getTileEntity(pos, Chunk.EnumCreateEntityType.CHECK);
+                    if (tileEntity == null) {
+                        tileEntity = block.createTileEntity(this.world, state);
+                        this.world.setTileEntity(pos, tileEntity);
+                    }
+                    if (tileEntity != null) {
+                        tileEntity.updateContainingBlockInfo();
+                    }
+                }
+                changedPositions.add(pos);
+                oldStates.add(oldState);
+            }
+        }
+    }
+
+    private boolean isNearBlockLight(BlockPos pos) {
+        if (this.world.getLightFor(EnumSkyBlock.BLOCK, pos) > 0) {
+            return true;
+        }
+        for (EnumFacing facing : EnumFacing.values()) {
+            if (this.world.getLightFor(EnumSkyBlock.BLOCK, pos.offset(facing)) > 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The player manager sends the changed blocks of a chunk in one packet per tick, and the changed
+    // sections instead once more blocks than the clumping threshold changed, so mark only what it keeps
+    private void markForUpdate(List<BlockPos> changedPositions) {
+        if (!(this.world instanceof WorldServer)) {
+            for (BlockPos pos : changedPositions) {
+                this.world.markBlockForUpdate(pos);
+            }
+            return;
+        }
+        int threshold = ForgeModContainer.clumpingThreshold;
+        int sectionsMarked = 0;
+        for (int i = 0; i < changedPositions.size(); i++) {
+            BlockPos pos = changedPositions.get(i);
+            int sectionFlag = 1 << (pos.getY() >> 4);
+            if (i < threshold || (sectionsMarked & sectionFlag) == 0) {
+                ((WorldServer) this.world).getPlayerManager().markBlockForUpdate(pos);
+                sectionsMarked |= sectionFlag;
+            }
+        }
+    }
+
+    private static final class ChunkChanges {
+
+        final int x;
+        final int z;
+        // Indexed by y << 8 | z << 4 | x, null where no block is set
+        final IBlockState[][] sections = new IBlockState[16][];
+
+        ChunkChanges(int x, int z) {
+            this.x = x;
+            this.z = z;
+        }
+    }
+}
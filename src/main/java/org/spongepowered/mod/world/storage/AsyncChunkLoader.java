@@ -0,0 +1,403 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.world.storage;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.MathHelper;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.storage.AnvilChunkLoader;
+import net.minecraft.world.gen.ChunkProviderServer;
+import net.minecraftforge.common.DimensionManager;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.world.ChunkDataEvent;
+import org.spongepowered.api.world.Chunk;
+import org.spongepowered.mod.SpongeMod;
+import org.spongepowered.mod.configuration.SpongeConfig;
+import org.spongepowered.mod.mixin.plugin.CoreMixinPlugin;
+import org.spongepowered.mod.service.scheduler.MainThreadExecutor;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads chunks without blocking the main thread on disk reads.
+ *
+ * <p>Reading and decompressing the chunk NBT runs on a pool of I/O threads.
+ * Loading the entities and tile entities and adding the chunk to its world
+ * then runs on the main thread through the {@link MainThreadExecutor}, the
+ * same way Forge's chunk I/O executor attaches chunks.</p>
+ *
+ * <p>Requests for a chunk that is already queued share the queued load.
+ * Chunks close to a player are read before the others.</p>
+ *
+ * <p>Callers loading many chunks in a fixed order, such as spawn area
+ * preparation, can {@link #prefetch} them instead and load each in turn on
+ * the main thread while the next ones are read.</p>
+ */
+public class AsyncChunkLoader {
+
+    // Chunks within this many chunks of a player are read first
+    private static final int PLAYER_RADIUS = 2;
+    private static final int PRIORITY_PLAYER = 0;
+    private static final int PRIORITY_NORMAL = 1;
+
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentMap<Request, Request> requests = new ConcurrentHashMap<Request, Request>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    AsyncChunkLoader(int threads) {
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new PriorityBlockingQueue<Runnable>(),
+                new ThreadFactoryBuilder().setNameFormat("Sponge Chunk I/O #%d").setDaemon(true).build());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    private static class AsyncChunkLoaderSingletonHolder {
+
+        private static final AsyncChunkLoader INSTANCE = new AsyncChunkLoader(getThreadCount());
+    }
+
+    /**
+     * Returns the instance (handle) to the asynchronous chunk loader.
+     *
+     * @return The single asynchronous chunk loader
+     */
+    public static AsyncChunkLoader getInstance() {
+        return AsyncChunkLoaderSingletonHolder.INSTANCE;
+    }
+
+    /**
+     * Loads a chunk, reading it from disk off the main thread.
+     *
+     * <p>If the chunk is not saved and should be generated, generation runs
+     * on the main thread. When requests with and without generation share a
+     * load, the chunk is generated for all of them.</p>
+     *
+     * @param world The world of the chunk
+     * @param x The chunk X coordinate
+     * @param z The chunk Z coordinate
+     * @param generate Whether to generate the chunk if it is not saved
+     * @return A future completed on the main thread with the chunk, or
+     *     absent if it is not saved and should not be generated
+     */
+    public ListenableFuture<Optional<Chunk>> loadChunk(final WorldServer world, final int x, final int z, final boolean generate) {
+        checkNotNull(world, "world");
+        boolean mainThread = MinecraftServer.getServer().isCallingFromMinecraftThread();
+        ChunkProviderServer provider = world.theChunkProviderServer;
+        if (mainThread && provider.chunkExists(x, z)) {
+            return Futures.immediateFuture(Optional.of((Chunk) provider.loadChunk(x, z)));
+        }
+        if (!(provider.chunkLoader instanceof AnvilChunkLoader)) {
+            // Nothing to read off the main thread, load it there in one go
+            return MainThreadExecutor.getInstance().callSync(new Callable<Optional<Chunk>>() {
+
+                @Override
+                public Optional<Chunk> call() throws Exception {
+                    ChunkProviderServer provider = world.theChunkProviderServer;
+                    if (provider.chunkExists(x, z) || generate) {
+                        return Optional.fromNullable((Chunk) provider.loadChunk(x, z));
+                    }
+                    return Optional.absent();
+                }
+            });
+        }
+
+        // Players can only be looked up safely from the main thread
+        int priority = mainThread && isNearPlayer(world, x, z) ? PRIORITY_PLAYER : PRIORITY_NORMAL;
+        Request request = new Request(world, x, z, generate, priority, this.sequence.getAndIncrement());
+        while (true) {
+            Request queued = this.requests.putIfAbsent(request, request);
+            if (queued == null) {
+                this.executor.execute(request);
+                return request.future;
+            }
+            synchronized (queued) {
+                if (!queued.attached) {
+                    queued.generate |= generate;
+                    if (priority < queued.priority && this.executor.remove(queued)) {
+                        queued.priority = priority;
+                        this.executor.execute(queued);
+                    }
+                    return queued.future;
+                }
+            }
+            // The queued load just finished, wait for it to leave the map and queue a new one
+            this.requests.remove(queued, queued);
+        }
+    }
+
+    /**
+     * Starts reading a chunk ahead of the main thread needing it, for callers
+     * that load many chunks in a fixed order. Prefetched chunks are read
+     * before other queued loads.
+     *
+     * @param world The world of the chunk
+     * @param x The chunk X coordinate
+     * @param z The chunk Z coordinate
+     * @return The prefetched chunk, to be loaded on the main thread
+     */
+    public Prefetch prefetch(WorldServer world, int x, int z) {
+        checkNotNull(world, "world");
+        if (!(world.theChunkProviderServer.chunkLoader instanceof AnvilChunkLoader)) {
+            return new Prefetch(null, world, x, z, this.sequence.getAndIncrement());
+        }
+        Prefetch prefetch = new Prefetch(this.executor, world, x, z, this.sequence.getAndIncrement());
+        this.executor.execute(prefetch);
+        return prefetch;
+    }
+
+    /**
+     * Gets the number of chunk loads waiting for an I/O thread.
+     *
+     * @return The number of queued chunk loads
+     */
+    public int getQueueDepth() {
+        return this.executor.getQueue().size();
+    }
+
+    private static boolean isNearPlayer(WorldServer world, int x, int z) {
+        for (Object o : world.playerEntities) {
+            EntityPlayer player = (EntityPlayer) o;
+            int playerX = MathHelper.floor_double(player.posX) >> 4;
+            int playerZ = MathHelper.floor_double(player.posZ) >> 4;
+            if (Math.abs(playerX - x) <= PLAYER_RADIUS && Math.abs(playerZ - z) <= PLAYER_RADIUS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int getThreadCount() {
+        SpongeConfig<SpongeConfig.GlobalConfig> config = CoreMixinPlugin.getGlobalConfig();
+        if (config == null || config.getConfig() == null) {
+            return 2;
+        }
+        return Math.max(1, config.getConfig().getIo().getChunkLoadThreads());
+    }
+
+    /**
+     * A chunk read by an I/O thread and attached on the main thread.
+     */
+    private abstract static class ChunkRead implements Runnable, Comparable<ChunkRead> {
+
+        final WorldServer world;
+        final int x;
+        final int z;
+        final long sequence;
+        volatile int priority;
+        private net.minecraft.world.chunk.Chunk chunk;
+        private NBTTagCompound compound;
+
+        ChunkRead(WorldServer world, int x, int z, int priority, long sequence) {
+            this.world = world;
+            this.x = x;
+            this.z = z;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        void read() {
+            AnvilChunkLoader loader = (AnvilChunkLoader) this.world.theChunkProviderServer.chunkLoader;
+            try {
+                if (loader.chunkExists(this.world, this.x, this.z)) {
+                    Object[] data = loader.loadChunk__Async(this.world, this.x, this.z);
+                    if (data != null) {
+                        this.chunk = (net.minecraft.world.chunk.Chunk) data[0];
+                        this.compound = (NBTTagCompound) data[1];
+                    }
+                }
+            } catch (Throwable t) {
+                SpongeMod.instance.getLogger().error("Could not read chunk " + this.x + ", " + this.z + " in world "
+                        + this.world.getWorldInfo().getWorldName(), t);
+            }
+        }
+
+        /**
+         * Adds the chunk read to its world. Must be called on the main thread.
+         *
+         * @param generate Whether to generate the chunk if it is not saved
+         * @return The chunk, or null if it is not saved and should not be
+         *     generated or its world was unloaded
+         */
+        net.minecraft.world.chunk.Chunk attach(boolean generate) {
+            if (DimensionManager.getWorld(this.world.provider.getDimensionId()) != this.world) {
+                // The world was unloaded while the chunk was read
+                return null;
+            }
+            ChunkProviderServer provider = this.world.theChunkProviderServer;
+            if (provider.chunkExists(this.x, this.z)) {
+                // Loaded by someone else meanwhile, this also takes it off the unload queue
+                return provider.loadChunk(this.x, this.z);
+            }
+            if (this.chunk == null) {
+                return generate ? provider.loadChunk(this.x, this.z) : null;
+            }
+
+            net.minecraft.world.chunk.Chunk chunk = this.chunk;
+            ((AnvilChunkLoader) provider.chunkLoader).loadEntities(this.world, this.compound.getCompoundTag("Level"), chunk);
+            MinecraftForge.EVENT_BUS.post(new ChunkDataEvent.Load(chunk, this.compound));
+            chunk.setLastSaveTime(this.world.getTotalWorldTime());
+            provider.id2ChunkMap.add(ChunkCoordIntPair.chunkXZ2Int(this.x, this.z), chunk);
+            provider.loadedChunks.add(chunk);
+            chunk.onChunkLoad();
+            if (provider.serverChunkGenerator != null) {
+                provider.serverChunkGenerator.recreateStructures(chunk, this.x, this.z);
+            }
+            chunk.populateChunk(provider, provider, this.x, this.z);
+            this.chunk = null;
+            this.compound = null;
+            return chunk;
+        }
+
+        boolean wasRead() {
+            return this.chunk != null;
+        }
+
+        @Override
+        public int compareTo(ChunkRead other) {
+            if (this.priority != other.priority) {
+                return this.priority < other.priority ? -1 : 1;
+            }
+            return this.sequence < other.sequence ? -1 : this.sequence == other.sequence ? 0 : 1;
+        }
+    }
+
+    /**
+     * A queued chunk load, equal to any other load of the same chunk.
+     */
+    private final class Request extends ChunkRead {
+
+        final SettableFuture<Optional<Chunk>> future = SettableFuture.create();
+        volatile boolean generate;
+        // Guarded by this, set once the load is handed to the main thread
+        boolean attached;
+
+        Request(WorldServer world, int x, int z, boolean generate, int priority, long sequence) {
+            super(world, x, z, priority, sequence);
+            this.generate = generate;
+        }
+
+        @Override
+        public void run() {
+            read();
+            MainThreadExecutor.getInstance().execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    complete();
+                }
+            });
+        }
+
+        private void complete() {
+            synchronized (this) {
+                this.attached = true;
+            }
+            AsyncChunkLoader.this.requests.remove(this, this);
+            try {
+                this.future.set(Optional.fromNullable((Chunk) attach(this.generate)));
+            } catch (Throwable t) {
+                this.future.setException(t);
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Request)) {
+                return false;
+            }
+            Request other = (Request) obj;
+            return this.world == other.world && this.x == other.x && this.z == other.z;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * System.identityHashCode(this.world) + this.x) + this.z;
+        }
+    }
+
+    /**
+     * A chunk read ahead of time, attached when the main thread asks for it.
+     */
+    public static final class Prefetch extends ChunkRead {
+
+        private final ThreadPoolExecutor executor;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private boolean fromDisk;
+
+        Prefetch(ThreadPoolExecutor executor, WorldServer world, int x, int z, long sequence) {
+            super(world, x, z, PRIORITY_PLAYER, sequence);
+            this.executor = executor;
+        }
+
+        @Override
+        public void run() {
+            read();
+            this.done.countDown();
+        }
+
+        /**
+         * Loads the chunk on the main thread, waiting for it to be read if an
+         * I/O thread is still on it, or reading it here if none has started.
+         *
+         * @return The chunk, generated if it was not saved
+         */
+        public net.minecraft.world.chunk.Chunk load() {
+            if (this.executor == null || this.executor.remove(this)) {
+                run();
+            } else {
+                Uninterruptibles.awaitUninterruptibly(this.done);
+            }
+            this.fromDisk = wasRead();
+            return attach(true);
+        }
+
+        /**
+         * Gets whether the chunk loaded by {@link #load()} was read ahead
+         * from disk, rather than generated or loaded by the chunk provider.
+         *
+         * @return Whether the chunk was read ahead
+         */
+        public boolean isRead() {
+            return this.fromDisk;
+        }
+    }
+}
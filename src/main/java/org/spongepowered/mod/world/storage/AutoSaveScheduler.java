@@ -0,0 +1,136 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.world.storage;
+
+import net.minecraft.world.MinecraftException;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.gen.ChunkProviderServer;
+import org.spongepowered.mod.SpongeMod;
+import org.spongepowered.mod.util.SpongeHooks;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Spreads the chunk saves of an autosave over the following ticks.
+ *
+ * <p>Vanilla saves every modified chunk of every world in the autosave tick.
+ * Instead, the loaded chunks are queued when the autosave runs and each
+ * world saves at most its configured number of them per tick. A chunk
+ * unloaded in the meantime was already saved by its unload.</p>
+ *
+ * <p>Chunks still queued by a previous autosave keep their place in the
+ * queue, so every chunk is eventually saved even if the queue does not
+ * drain within one autosave interval.</p>
+ */
+public class AutoSaveScheduler {
+
+    private static boolean autoSaving;
+
+    private final WorldServer world;
+    private final ArrayDeque<Chunk> queue = new ArrayDeque<Chunk>();
+    private final Set<Chunk> queued = Collections.newSetFromMap(new IdentityHashMap<Chunk, Boolean>());
+
+    public AutoSaveScheduler(WorldServer world) {
+        this.world = world;
+    }
+
+    public static boolean isAutoSaving() {
+        return autoSaving;
+    }
+
+    public static void setAutoSaving(boolean autoSaving) {
+        AutoSaveScheduler.autoSaving = autoSaving;
+    }
+
+    /**
+     * Gets the number of chunks the world saves each tick, or 0 if autosave
+     * chunks are saved all at once.
+     *
+     * @return The number of chunks saved each tick
+     */
+    public int getChunksPerTick() {
+        return Math.max(0, SpongeHooks.getActiveConfig(this.world).getConfig().getWorld().getAutosaveChunksPerTick());
+    }
+
+    /**
+     * Queues every loaded chunk of the world for saving which is not queued
+     * yet.
+     *
+     * @param provider The chunk provider of the world
+     */
+    public void queueChunks(ChunkProviderServer provider) {
+        for (Object chunk : provider.loadedChunks) {
+            if (this.queued.add((Chunk) chunk)) {
+                this.queue.add((Chunk) chunk);
+            }
+        }
+    }
+
+    /**
+     * Saves the next queued chunks needing it, up to the configured number.
+     */
+    public void tick() {
+        if (this.queue.isEmpty()) {
+            return;
+        }
+        ChunkProviderServer provider = this.world.theChunkProviderServer;
+        // Also drop the queue if saving was turned off since the chunks were queued,
+        // the first autosave after saving is turned back on queues them again
+        if (provider.chunkLoader == null || this.world.disableLevelSaving) {
+            this.queue.clear();
+            this.queued.clear();
+            return;
+        }
+        int quota = getChunksPerTick();
+        if (quota == 0) {
+            quota = Integer.MAX_VALUE;
+        }
+        int saved = 0;
+        Chunk chunk;
+        while (saved < quota && (chunk = this.queue.poll()) != null) {
+            this.queued.remove(chunk);
+            // Skip chunks unloaded, or unloaded and loaded again, since they were queued
+            if (!provider.chunkExists(chunk.xPosition, chunk.zPosition)
+                    || provider.provideChunk(chunk.xPosition, chunk.zPosition) != chunk || !chunk.needsSaving(true)) {
+                continue;
+            }
+            chunk.setLastSaveTime(this.world.getTotalWorldTime());
+            try {
+                provider.chunkLoader.saveChunk(this.world, chunk);
+            } catch (IOException e) {
+                SpongeMod.instance.getLogger().error("Couldn't save chunk", e);
+            } catch (MinecraftException e) {
+                SpongeMod.instance.getLogger().error("Couldn't save chunk; already in use by another instance of Minecraft?", e);
+            }
+            chunk.setModified(false);
+            saved++;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.world.storage;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import org.spongepowered.mod.SpongeMod;
+import org.spongepowered.mod.world.storage.compression.ChunkCodecs;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes world data files such as level.dat off the main thread.
+ *
+ * <p>The main thread hands over an NBT snapshot, which a single writer
+ * thread compresses and writes to a temporary file, syncs to disk and then
+ * moves in place, keeping the previous file as a backup. Saving a file again
+ * before the previous save was written only replaces the snapshot, so a
+ * world saved several times in a row is written once.</p>
+ */
+public class LevelDataWriter {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("Sponge Level Data Writer").setDaemon(true).build());
+    // Guarded by itself, snapshots waiting to be written by file
+    private final Map<File, NBTTagCompound> pending = new HashMap<File, NBTTagCompound>();
+
+    LevelDataWriter() {
+    }
+
+    private static class LevelDataWriterSingletonHolder {
+
+        private static final LevelDataWriter INSTANCE = new LevelDataWriter();
+    }
+
+    /**
+     * Returns the instance (handle) to the level data writer.
+     *
+     * @return The single level data writer
+     */
+    public static LevelDataWriter getInstance() {
+        return LevelDataWriterSingletonHolder.INSTANCE;
+    }
+
+    /**
+     * Queues a compound to be written to a file. The compound must not be
+     * changed after it is handed over.
+     *
+     * @param file The file to write
+     * @param compound The snapshot to write
+     */
+    public void write(final File file, NBTTagCompound compound) {
+        checkNotNull(file, "file");
+        checkNotNull(compound, "compound");
+        synchronized (this.pending) {
+            if (this.pending.put(file, compound) != null) {
+                // Still queued, the queued write takes the new snapshot
+                return;
+            }
+        }
+        this.executor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                NBTTagCompound snapshot;
+                synchronized (LevelDataWriter.this.pending) {
+                    snapshot = LevelDataWriter.this.pending.remove(file);
+                }
+                if (snapshot != null) {
+                    try {
+                        writeAtomically(file, snapshot);
+                    } catch (IOException e) {
+                        SpongeMod.instance.getLogger().error("Could not write " + file, e);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Waits until every queued file has been written.
+     */
+    public void flush() {
+        FutureTask<Void> barrier = new FutureTask<Void>(new Runnable() {
+
+            @Override
+            public void run() {
+            }
+        }, null);
+        this.executor.execute(barrier);
+        try {
+            Uninterruptibles.getUninterruptibly(barrier);
+        } catch (ExecutionException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Writes a compound to a file, so that either the old or the new file is
+     * complete on disk at any point. The previous file is kept with an _old
+     * suffix, which the game falls back to when the file itself is missing.
+     *
+     * @param file The file to write
+     * @param compound The compound to write
+     * @throws IOException If the file could not be written
+     */
+    static void writeAtomically(File file, NBTTagCompound compound) throws IOException {
+        File newFile = new File(file.getParentFile(), file.getName() + "_new");
+        File oldFile = new File(file.getParentFile(), file.getName() + "_old");
+
+        FileOutputStream out = new FileOutputStream(newFile);
+        try {
+            GZIPOutputStream gzip = ChunkCodecs.gzip(ChunkCodecs.getLevel()).compress(new BufferedOutputStream(out));
+            CompressedStreamTools.write(compound, new DataOutputStream(gzip));
+            gzip.finish();
+            gzip.flush();
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+
+        if (file.exists()) {
+            if (oldFile.exists() && !oldFile.delete()) {
+                throw new IOException("Could not delete " + oldFile);
+            }
+            if (!file.renameTo(oldFile)) {
+                throw new IOException("Could not move " + file + " to " + oldFile);
+            }
+        }
+        if (!newFile.renameTo(file)) {
+            throw new IOException("Could not move " + newFile + " to " + file);
+        }
+    }
+}
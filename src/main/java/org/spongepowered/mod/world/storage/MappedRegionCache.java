@@ -0,0 +1,274 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.world.storage;
+
+import org.spongepowered.mod.SpongeMod;
+import org.spongepowered.mod.configuration.SpongeConfig;
+import org.spongepowered.mod.mixin.plugin.CoreMixinPlugin;
+import org.spongepowered.mod.world.storage.compression.ChunkCodec;
+import org.spongepowered.mod.world.storage.compression.ChunkCodecs;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the most recently used {@link MappedRegionFile}s open.
+ *
+ * <p>Only opening and evicting regions is synchronized. Reads and writes run
+ * on the region itself, so threads reading different chunks do not wait for
+ * each other as they do with vanilla's RegionFileCache. A region evicted
+ * while in use is closed once its reads and writes finish, and those using it
+ * afterwards open it again.</p>
+ */
+public class MappedRegionCache {
+
+    private final Map<File, MappedRegionFile> regions = new LinkedHashMap<File, MappedRegionFile>(16, 0.75F, true);
+    private final int maxOpenRegions;
+
+    public MappedRegionCache(int maxOpenRegions) {
+        this.maxOpenRegions = maxOpenRegions;
+    }
+
+    private static class MappedRegionCacheSingletonHolder {
+
+        private static final MappedRegionCache INSTANCE = new MappedRegionCache(getCacheSize());
+    }
+
+    /**
+     * Returns the instance (handle) to the region cache used by the Sponge
+     * chunk loader.
+     *
+     * @return The single region cache
+     */
+    public static MappedRegionCache getInstance() {
+        return MappedRegionCacheSingletonHolder.INSTANCE;
+    }
+
+    /**
+     * Checks whether a chunk is saved.
+     *
+     * @param worldDirectory The directory of the world
+     * @param x The chunk x coordinate
+     * @param z The chunk z coordinate
+     * @return True if the chunk is saved
+     */
+    public boolean chunkExists(File worldDirectory, int x, int z) {
+        for (int attempt = 0;; attempt++) {
+            MappedRegionFile region = null;
+            try {
+                region = getRegion(worldDirectory, x, z, false);
+                return region != null && region.chunkExists(x, z);
+            } catch (IOException e) {
+                if (!retry(region, attempt)) {
+                    SpongeMod.instance.getLogger().error("Failed to check chunk " + x + ", " + z + " in " + worldDirectory, e);
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a chunk.
+     *
+     * @param worldDirectory The directory of the world
+     * @param x The chunk x coordinate
+     * @param z The chunk z coordinate
+     * @return A stream of the decompressed chunk data, or null if the chunk
+     *         is not saved
+     * @throws IOException If the read fails
+     */
+    public DataInputStream getChunkInputStream(File worldDirectory, int x, int z) throws IOException {
+        for (int attempt = 0;; attempt++) {
+            MappedRegionFile region = null;
+            try {
+                region = getRegion(worldDirectory, x, z, false);
+                return region == null ? null : region.read(x, z);
+            } catch (IOException e) {
+                if (!retry(region, attempt)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets a stream writing a chunk with the configured codec once it is
+     * closed.
+     *
+     * @param worldDirectory The directory of the world
+     * @param x The chunk x coordinate
+     * @param z The chunk z coordinate
+     * @return A stream compressing the chunk data
+     * @throws IOException If the stream could not be created
+     */
+    public DataOutputStream getChunkOutputStream(File worldDirectory, int x, int z) throws IOException {
+        return getChunkOutputStream(worldDirectory, x, z, ChunkCodecs.getDefault());
+    }
+
+    /**
+     * Gets a stream writing a chunk once it is closed. Nothing is written if
+     * the stream is not closed, so a stream is simply dropped if writing the
+     * chunk to it fails.
+     *
+     * @param worldDirectory The directory of the world
+     * @param x The chunk x coordinate
+     * @param z The chunk z coordinate
+     * @param codec The codec to compress the chunk with
+     * @return A stream compressing the chunk data
+     * @throws IOException If the stream could not be created
+     */
+    public DataOutputStream getChunkOutputStream(File worldDirectory, int x, int z, ChunkCodec codec) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(codec.compress(new ChunkBuffer(worldDirectory, x, z, codec.getVersion()))));
+    }
+
+    /**
+     * Writes a compressed chunk.
+     *
+     * @param worldDirectory The directory of the world
+     * @param x The chunk x coordinate
+     * @param z The chunk z coordinate
+     * @param data The compressed chunk data
+     * @param length The length of the data
+     * @param version The version of the codec the data was compressed with
+     * @throws IOException If the write fails
+     */
+    public void write(File worldDirectory, int x, int z, byte[] data, int length, byte version) throws IOException {
+        for (int attempt = 0;; attempt++) {
+            MappedRegionFile region = null;
+            try {
+                region = getRegion(worldDirectory, x, z, true);
+                region.write(x, z, data, length, version);
+                return;
+            } catch (IOException e) {
+                if (!retry(region, attempt)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes every open region.
+     */
+    public void clear() {
+        List<MappedRegionFile> closing;
+        synchronized (this) {
+            closing = new ArrayList<MappedRegionFile>(this.regions.values());
+            this.regions.clear();
+        }
+        for (MappedRegionFile region : closing) {
+            closeRegion(region);
+        }
+    }
+
+    private MappedRegionFile getRegion(File worldDirectory, int x, int z, boolean create) throws IOException {
+        File directory = new File(worldDirectory, "region");
+        File file = new File(directory, "r." + (x >> 5) + "." + (z >> 5) + ".mca");
+        MappedRegionFile region;
+        MappedRegionFile evicted = null;
+        synchronized (this) {
+            region = this.regions.get(file);
+            if (region == null) {
+                if (!create && !file.exists()) {
+                    return null;
+                }
+                directory.mkdirs();
+                region = new MappedRegionFile(file);
+                this.regions.put(file, region);
+
+                if (this.regions.size() > this.maxOpenRegions) {
+                    Iterator<MappedRegionFile> iterator = this.regions.values().iterator();
+                    evicted = iterator.next();
+                    iterator.remove();
+                }
+            }
+        }
+        // Closing waits for the reads and writes of the region, so it is done outside the lock
+        if (evicted != null) {
+            closeRegion(evicted);
+        }
+        return region;
+    }
+
+    // Retries once with a newly opened region if the region failed because it was closed
+    private boolean retry(MappedRegionFile region, int attempt) {
+        if (region == null || !region.isClosed() || attempt > 0) {
+            return false;
+        }
+        synchronized (this) {
+            if (this.regions.get(region.getFile()) == region) {
+                this.regions.remove(region.getFile());
+            }
+        }
+        closeRegion(region);
+        return true;
+    }
+
+    private static void closeRegion(MappedRegionFile region) {
+        try {
+            region.close();
+        } catch (IOException e) {
+            SpongeMod.instance.getLogger().error("Failed to close region file " + region.getFile(), e);
+        }
+    }
+
+    private static int getCacheSize() {
+        SpongeConfig<SpongeConfig.GlobalConfig> config = CoreMixinPlugin.getGlobalConfig();
+        if (config == null || config.getConfig() == null) {
+            return 256;
+        }
+        return Math.max(1, config.getConfig().getIo().getRegionFileCacheSize());
+    }
+
+    private class ChunkBuffer extends ByteArrayOutputStream {
+
+        private final File worldDirectory;
+        private final int x;
+        private final int z;
+        private final byte version;
+
+        ChunkBuffer(File worldDirectory, int x, int z, byte version) {
+            super(8192);
+            this.worldDirectory = worldDirectory;
+            this.x = x;
+            this.z = z;
+            this.version = version;
+        }
+
+        @Override
+        public void close() throws IOException {
+            MappedRegionCache.this.write(this.worldDirectory, this.x, this.z, this.buf, this.count, this.version);
+        }
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.world.storage;
+
+import org.spongepowered.mod.world.storage.compression.ChunkCodec;
+import org.spongepowered.mod.world.storage.compression.ChunkCodecs;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.util.BitSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A region file in the Anvil format, read and written through a
+ * {@link FileChannel}.
+ *
+ * <p>The header holding the chunk offsets and timestamps is memory mapped,
+ * or else held in memory and written back when the region is forced or
+ * closed. A mapping is only released once garbage collected, which keeps
+ * the file from being renamed or deleted on some platforms. Chunk sectors are read with positional reads, so any number of threads can
+ * read chunks of the same region at once; only writes are exclusive. Unlike
+ * vanilla, a chunk which no longer fits its sectors is written to free
+ * sectors before its old ones are released.</p>
+ */
+public class MappedRegionFile {
+
+    private static final int SECTOR_BYTES = 4096;
+    private static final int HEADER_SECTORS = 2;
+    // Length and compression version in front of every chunk
+    private static final int CHUNK_HEADER_BYTES = 5;
+    private static final int MAX_CHUNK_SECTORS = 255;
+
+    private final File file;
+    private final FileChannel channel;
+    private final ByteBuffer header;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final BitSet usedSectors = new BitSet();
+    private int sectorCount;
+    private volatile boolean closed;
+
+    public MappedRegionFile(File file) throws IOException {
+        this(file, true);
+    }
+
+    /**
+     * Opens a region file.
+     *
+     * @param file The region file, created if it does not exist
+     * @param mapHeader Whether the header is memory mapped rather than
+     *        written back on {@link #force()} and {@link #close()}
+     * @throws IOException If the file could not be opened
+     */
+    public MappedRegionFile(File file, boolean mapHeader) throws IOException {
+        this.file = file;
+        this.channel = new RandomAccessFile(file, "rw").getChannel();
+        try {
+            long size = this.channel.size();
+            long alignedSize = Math.max(HEADER_SECTORS * SECTOR_BYTES, (size + SECTOR_BYTES - 1) / SECTOR_BYTES * SECTOR_BYTES);
+            if (size < alignedSize) {
+                writeFully(ByteBuffer.allocate((int) (alignedSize - size)), size);
+            }
+            if (mapHeader) {
+                this.header = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SECTORS * SECTOR_BYTES);
+            } else {
+                this.header = ByteBuffer.allocate(HEADER_SECTORS * SECTOR_BYTES);
+                readFully(this.header, 0);
+                this.header.clear();
+            }
+            this.sectorCount = (int) (alignedSize / SECTOR_BYTES);
+            this.usedSectors.set(0, HEADER_SECTORS);
+            for (int i = 0; i < 1024; i++) {
+                int offset = this.header.getInt(i * 4);
+                int start = offset >>> 8;
+                int count = offset & 255;
+                if (offset != 0 && start + count <= this.sectorCount) {
+                    this.usedSectors.set(start, start + count);
+                }
+            }
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Checks whether a chunk is saved in this region.
+     *
+     * @param x The chunk x coordinate within the region
+     * @param z The chunk z coordinate within the region
+     * @return True if the chunk is saved
+     * @throws IOException If the region is closed
+     */
+    public boolean chunkExists(int x, int z) throws IOException {
+        this.lock.readLock().lock();
+        try {
+            ensureOpen();
+            return this.header.getInt(index(x, z) * 4) != 0;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads a chunk.
+     *
+     * @param x The chunk x coordinate within the region
+     * @param z The chunk z coordinate within the region
+     * @return A stream of the decompressed chunk data, or null if the chunk
+     *         is not saved, its data is invalid or its codec unknown
+     * @throws IOException If the read fails or the region is closed
+     */
+    public DataInputStream read(int x, int z) throws IOException {
+        byte[] data;
+        byte version;
+        int length;
+        this.lock.readLock().lock();
+        try {
+            ensureOpen();
+            int offset = this.header.getInt(index(x, z) * 4);
+            int start = offset >>> 8;
+            int count = offset & 255;
+            if (offset == 0 || start + count > this.sectorCount) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(count * SECTOR_BYTES);
+            readFully(buffer, (long) start * SECTOR_BYTES);
+            length = buffer.getInt(0) - 1;
+            if (length <= 0 || length + CHUNK_HEADER_BYTES > buffer.capacity()) {
+                return null;
+            }
+            version = buffer.get(4);
+            data = buffer.array();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        ChunkCodec codec = ChunkCodecs.getByVersion(version);
+        if (codec == null) {
+            return null;
+        }
+        return new DataInputStream(new BufferedInputStream(codec.decompress(new ByteArrayInputStream(data, CHUNK_HEADER_BYTES, length))));
+    }
+
+    /**
+     * Writes a chunk.
+     *
+     * @param x The chunk x coordinate within the region
+     * @param z The chunk z coordinate within the region
+     * @param data The compressed chunk data
+     * @param length The length of the data
+     * @param version The version of the codec the data was compressed with
+     * @throws IOException If the write fails, the chunk is too large or the
+     *         region is closed
+     */
+    public void write(int x, int z, byte[] data, int length, byte version) throws IOException {
+        int needed = (length + CHUNK_HEADER_BYTES + SECTOR_BYTES - 1) / SECTOR_BYTES;
+        if (needed > MAX_CHUNK_SECTORS) {
+            throw new IOException("Chunk " + x + ", " + z + " of " + this.file + " is too large: " + length + " bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(needed * SECTOR_BYTES);
+        buffer.putInt(length + 1);
+        buffer.put(version);
+        buffer.put(data, 0, length);
+        buffer.clear();
+
+        this.lock.writeLock().lock();
+        try {
+            ensureOpen();
+            int index = index(x, z);
+            int offset = this.header.getInt(index * 4);
+            int start = offset >>> 8;
+            int count = offset & 255;
+            if (offset != 0 && count == needed && start + count <= this.sectorCount) {
+                writeFully(buffer, (long) start * SECTOR_BYTES);
+            } else {
+                int newStart = findFreeSectors(needed);
+                if (newStart < 0) {
+                    newStart = this.sectorCount;
+                }
+                writeFully(buffer, (long) newStart * SECTOR_BYTES);
+                this.sectorCount = Math.max(this.sectorCount, newStart + needed);
+                this.usedSectors.set(newStart, newStart + needed);
+                this.header.putInt(index * 4, newStart << 8 | needed);
+                if (offset != 0 && start + count <= this.sectorCount) {
+                    this.usedSectors.clear(start, start + count);
+                }
+            }
+            this.header.putInt(SECTOR_BYTES + index * 4, (int) (System.currentTimeMillis() / 1000L));
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Checks whether this region was closed, or its channel was closed by an
+     * interrupted read or write.
+     *
+     * @return True if the region can no longer be used
+     */
+    public boolean isClosed() {
+        return this.closed || !this.channel.isOpen();
+    }
+
+    /**
+     * Forces the chunks and header written so far to disk.
+     *
+     * @throws IOException If the region could not be forced or is closed
+     */
+    public void force() throws IOException {
+        this.lock.writeLock().lock();
+        try {
+            ensureOpen();
+            flushHeader();
+            this.channel.force(true);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Closes this region, waiting for reads and writes in progress.
+     *
+     * @throws IOException If the header could not be written
+     */
+    public void close() throws IOException {
+        this.lock.writeLock().lock();
+        try {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            try {
+                if (this.channel.isOpen()) {
+                    flushHeader();
+                }
+            } finally {
+                this.channel.close();
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private void flushHeader() throws IOException {
+        if (this.header instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) this.header).force();
+        } else {
+            // The header is only accessed by index, so a duplicate covers all of it
+            writeFully(this.header.duplicate(), 0);
+        }
+    }
+
+    private int findFreeSectors(int count) {
+        int start = this.usedSectors.nextClearBit(HEADER_SECTORS);
+        while (start < this.sectorCount) {
+            int end = this.usedSectors.nextSetBit(start);
+            if (end < 0 || end > this.sectorCount) {
+                end = this.sectorCount;
+            }
+            if (end - start >= count) {
+                return start;
+            }
+            start = this.usedSectors.nextClearBit(end);
+        }
+        return -1;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (this.channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of " + this.file);
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (this.closed) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    private static int index(int x, int z) {
+        return (x & 31) + (z & 31) * 32;
+    }
+}
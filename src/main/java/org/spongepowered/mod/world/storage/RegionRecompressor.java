@@ -0,0 +1,258 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.world.storage;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.spongepowered.mod.SpongeMod;
+import org.spongepowered.mod.world.storage.compression.ChunkCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Rewrites the region files of a world with every chunk compressed with one
+ * codec.
+ *
+ * <p>Each region is copied to a new file, which replaces it once complete,
+ * so the regions also lose the space of chunks which shrank over time. A
+ * region with a chunk that cannot be read is left as it is. The world must
+ * not be loaded while its regions are recompressed, so it is marked busy
+ * until the recompressor finishes and loading it is refused meanwhile. The
+ * server waits for running recompressors when it stops.</p>
+ */
+public class RegionRecompressor {
+
+    private static final ConcurrentMap<File, Thread> running = new ConcurrentHashMap<File, Thread>();
+
+    private final File worldDirectory;
+    private final ChunkCodec codec;
+    private int regionCount;
+    private int failedRegionCount;
+    private int chunkCount;
+    private long sizeBefore;
+    private long sizeAfter;
+
+    public RegionRecompressor(File worldDirectory, ChunkCodec codec) {
+        this.worldDirectory = worldDirectory;
+        this.codec = codec;
+    }
+
+    /**
+     * Checks whether the regions of a world are being recompressed.
+     *
+     * @param worldDirectory The directory of the world
+     * @return True if the world must not be loaded
+     */
+    public static boolean isRecompressing(File worldDirectory) {
+        return running.containsKey(getKey(worldDirectory));
+    }
+
+    /**
+     * Waits for every running recompressor to finish.
+     */
+    public static void awaitAll() {
+        for (Map.Entry<File, Thread> entry : running.entrySet()) {
+            SpongeMod.instance.getLogger().info("Waiting for the regions of " + entry.getKey() + " to be recompressed");
+            Uninterruptibles.joinUninterruptibly(entry.getValue());
+        }
+    }
+
+    private static File getKey(File worldDirectory) {
+        try {
+            return worldDirectory.getCanonicalFile();
+        } catch (IOException e) {
+            return worldDirectory.getAbsoluteFile();
+        }
+    }
+
+    /**
+     * Recompresses every region of the world in a new thread, unless the
+     * world is already being recompressed.
+     *
+     * @param callback Run in the new thread once the world is recompressed
+     * @return False if the world is already being recompressed
+     */
+    public boolean start(final Runnable callback) {
+        final File key = getKey(this.worldDirectory);
+        Thread thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    RegionRecompressor.this.run();
+                } finally {
+                    running.remove(key);
+                }
+                callback.run();
+            }
+        }, "Sponge Region Recompressor");
+        if (running.putIfAbsent(key, thread) != null) {
+            return false;
+        }
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Recompresses every region of the world.
+     */
+    public void run() {
+        File directory = new File(this.worldDirectory, "region");
+        restoreInterrupted(directory);
+        File[] regions = directory.listFiles(new FilenameFilter() {
+
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith("r.") && name.endsWith(".mca");
+            }
+        });
+        if (regions == null) {
+            return;
+        }
+        for (File region : regions) {
+            long size = region.length();
+            try {
+                this.chunkCount += recompress(region);
+                this.regionCount++;
+                this.sizeBefore += size;
+                this.sizeAfter += region.length();
+            } catch (IOException e) {
+                this.failedRegionCount++;
+                SpongeMod.instance.getLogger().error("Could not recompress " + region + ", it is left unchanged", e);
+            }
+        }
+    }
+
+    // Moves back regions whose replacement was interrupted, which the game would not read otherwise
+    private static void restoreInterrupted(File directory) {
+        File[] oldFiles = directory.listFiles(new FilenameFilter() {
+
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith("r.") && name.endsWith(".mca_old");
+            }
+        });
+        if (oldFiles == null) {
+            return;
+        }
+        for (File oldFile : oldFiles) {
+            File file = new File(directory, oldFile.getName().substring(0, oldFile.getName().length() - "_old".length()));
+            if (!file.exists() && !oldFile.renameTo(file)) {
+                SpongeMod.instance.getLogger().error("Could not restore " + oldFile + " to " + file);
+            }
+        }
+    }
+
+    private int recompress(File file) throws IOException {
+        File newFile = new File(file.getParentFile(), file.getName() + "_new");
+        File oldFile = new File(file.getParentFile(), file.getName() + "_old");
+        if (newFile.exists() && !newFile.delete()) {
+            throw new IOException("Could not delete " + newFile);
+        }
+
+        int chunks = 0;
+        // Not mapped, as a mapping left after closing would keep the files from being renamed on Windows
+        MappedRegionFile source = new MappedRegionFile(file, false);
+        try {
+            MappedRegionFile target = new MappedRegionFile(newFile, false);
+            try {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream(8192);
+                byte[] copy = new byte[8192];
+                for (int z = 0; z < 32; z++) {
+                    for (int x = 0; x < 32; x++) {
+                        if (!source.chunkExists(x, z)) {
+                            continue;
+                        }
+                        DataInputStream in = source.read(x, z);
+                        if (in == null) {
+                            throw new IOException("Chunk " + x + ", " + z + " is corrupt or of an unknown compression");
+                        }
+                        buffer.reset();
+                        OutputStream out = this.codec.compress(buffer);
+                        try {
+                            int n;
+                            while ((n = in.read(copy)) >= 0) {
+                                out.write(copy, 0, n);
+                            }
+                        } finally {
+                            out.close();
+                            in.close();
+                        }
+                        target.write(x, z, buffer.toByteArray(), buffer.size(), this.codec.getVersion());
+                        chunks++;
+                    }
+                }
+                // The new region must be on disk before it replaces the old one
+                target.force();
+            } finally {
+                target.close();
+            }
+        } finally {
+            source.close();
+        }
+
+        if (oldFile.exists() && !oldFile.delete()) {
+            throw new IOException("Could not delete " + oldFile);
+        }
+        if (!file.renameTo(oldFile)) {
+            throw new IOException("Could not move " + file + " to " + oldFile);
+        }
+        if (!newFile.renameTo(file)) {
+            if (!oldFile.renameTo(file)) {
+                throw new IOException("Could not move " + newFile + " to " + file + " nor restore " + oldFile);
+            }
+            throw new IOException("Could not move " + newFile + " to " + file);
+        }
+        oldFile.delete();
+        return chunks;
+    }
+
+    public int getRegionCount() {
+        return this.regionCount;
+    }
+
+    public int getFailedRegionCount() {
+        return this.failedRegionCount;
+    }
+
+    public int getChunkCount() {
+        return this.chunkCount;
+    }
+
+    public long getSizeBefore() {
+        return this.sizeBefore;
+    }
+
+    public long getSizeAfter() {
+        return this.sizeAfter;
+    }
+}
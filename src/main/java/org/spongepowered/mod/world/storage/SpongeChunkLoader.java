@@ -0,0 +1,352 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.world.storage;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import net.minecraft.block.Block;
+import net.minecraft.entity.Entity;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.nbt.NBTTagList;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.world.ChunkCoordIntPair;
+import net.minecraft.world.MinecraftException;
+import net.minecraft.world.NextTickListEntry;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.NibbleArray;
+import net.minecraft.world.chunk.storage.AnvilChunkLoader;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+import net.minecraftforge.common.ForgeChunkManager;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.event.world.ChunkDataEvent;
+import org.spongepowered.mod.SpongeMod;
+import org.spongepowered.mod.interfaces.IMixinEventBus;
+import org.spongepowered.mod.interfaces.IMixinExtendedBlockStorage;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Chunk loader saving chunks without serializing their blocks on the main
+ * thread.
+ *
+ * <p>Saving a chunk shares its block arrays copy-on-write, copies its light,
+ * biome and height arrays and writes its entities, tile entities and
+ * scheduled ticks to NBT on the main thread, as those are live objects. The
+ * chunk writer thread then turns the block arrays into section NBT,
+ * compresses the chunk and writes it to its region file.</p>
+ *
+ * <p>Region files are accessed through the {@link MappedRegionCache}, so
+ * chunks are read in parallel by the chunk I/O threads. Until a saved chunk is
+ * written, loading it reads the saved copy rather than the region file.
+ * Saving it again replaces the copy, so a chunk is written once however often
+ * it was saved while queued.</p>
+ *
+ * <p>If any listener is registered for {@link ChunkDataEvent.Save}, the
+ * sections are built on the main thread instead, so the listeners see the
+ * full chunk compound.</p>
+ */
+public class SpongeChunkLoader extends AnvilChunkLoader {
+
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("Sponge Chunk Writer").setDaemon(true).build());
+
+    private final File directory;
+    private final ConcurrentMap<ChunkCoordIntPair, ChunkSnapshot> pending = new ConcurrentHashMap<ChunkCoordIntPair, ChunkSnapshot>();
+
+    public SpongeChunkLoader(File directory) {
+        super(directory);
+        this.directory = directory;
+    }
+
+    /**
+     * Waits until every saved chunk of every world has been written.
+     */
+    public static void flush() {
+        FutureTask<Void> barrier = new FutureTask<Void>(new Runnable() {
+
+            @Override
+            public void run() {
+            }
+        }, null);
+        writer.execute(barrier);
+        try {
+            Uninterruptibles.getUninterruptibly(barrier);
+        } catch (ExecutionException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Override
+    public void saveChunk(World world, Chunk chunk) throws MinecraftException, IOException {
+        world.checkSessionLock();
+        final ChunkCoordIntPair pos = chunk.getChunkCoordIntPair();
+        ChunkSnapshot snapshot;
+        try {
+            snapshot = new ChunkSnapshot(world, chunk);
+        } catch (Exception e) {
+            SpongeMod.instance.getLogger().error("Failed to save chunk", e);
+            return;
+        }
+        if (this.pending.put(pos, snapshot) != null) {
+            // Still queued, the queued write takes the new snapshot
+            return;
+        }
+        writer.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                write(pos);
+            }
+        });
+    }
+
+    private void write(ChunkCoordIntPair pos) {
+        ChunkSnapshot snapshot;
+        while ((snapshot = this.pending.get(pos)) != null) {
+            try {
+                NBTTagCompound compound = snapshot.toNBT();
+                DataOutputStream out = MappedRegionCache.getInstance().getChunkOutputStream(this.directory, pos.chunkXPos, pos.chunkZPos);
+                CompressedStreamTools.write(compound, out);
+                // Closing commits the chunk, a stream left open after a failure is discarded with the old chunk kept
+                out.close();
+            } catch (Exception e) {
+                SpongeMod.instance.getLogger().error("Failed to write chunk " + pos, e);
+            }
+            if (this.pending.remove(pos, snapshot)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public Object[] loadChunk__Async(World world, int x, int z) throws IOException {
+        ChunkSnapshot snapshot = this.pending.get(new ChunkCoordIntPair(x, z));
+        if (snapshot != null) {
+            return checkedReadChunkFromNBT__Async(world, x, z, snapshot.toNBT());
+        }
+        DataInputStream in = MappedRegionCache.getInstance().getChunkInputStream(this.directory, x, z);
+        if (in == null) {
+            return null;
+        }
+        NBTTagCompound compound;
+        try {
+            compound = CompressedStreamTools.read(in);
+        } finally {
+            in.close();
+        }
+        return checkedReadChunkFromNBT__Async(world, x, z, compound);
+    }
+
+    @Override
+    public boolean chunkExists(World world, int x, int z) {
+        return this.pending.containsKey(new ChunkCoordIntPair(x, z)) || MappedRegionCache.getInstance().chunkExists(this.directory, x, z);
+    }
+
+    @Override
+    public void saveExtraData() {
+        flush();
+        super.saveExtraData();
+    }
+
+    /**
+     * A copy of a chunk as it was when it was saved.
+     */
+    private static final class ChunkSnapshot {
+
+        // The chunk compound, never changed once built
+        private final NBTTagCompound root;
+        // Whether the sections are left out of the root and built by the writer thread
+        private final boolean deferSections;
+        private final int[] sectionY;
+        private final char[][] blocks;
+        private final byte[][] blockLight;
+        private final byte[][] skyLight;
+
+        ChunkSnapshot(World world, Chunk chunk) {
+            NBTTagCompound level = new NBTTagCompound();
+            this.root = new NBTTagCompound();
+            this.root.setTag("Level", level);
+
+            level.setByte("V", (byte) 1);
+            level.setInteger("xPos", chunk.xPosition);
+            level.setInteger("zPos", chunk.zPosition);
+            level.setLong("LastUpdate", world.getTotalWorldTime());
+            level.setIntArray("HeightMap", chunk.getHeightMap().clone());
+            level.setBoolean("TerrainPopulated", chunk.isTerrainPopulated());
+            level.setBoolean("LightPopulated", chunk.isLightPopulated());
+            level.setLong("InhabitedTime", chunk.getInhabitedTime());
+
+            ExtendedBlockStorage[] storage = chunk.getBlockStorageArray();
+            int count = 0;
+            for (ExtendedBlockStorage section : storage) {
+                if (section != null) {
+                    count++;
+                }
+            }
+            boolean hasSky = !world.provider.getHasNoSky();
+            this.sectionY = new int[count];
+            this.blocks = new char[count][];
+            this.blockLight = new byte[count][];
+            this.skyLight = new byte[count][];
+            int i = 0;
+            for (ExtendedBlockStorage section : storage) {
+                if (section != null) {
+                    this.sectionY[i] = section.getYLocation() >> 4 & 255;
+                    // Copied by the section when it next changes
+                    this.blocks[i] = ((IMixinExtendedBlockStorage) section).getSharedData();
+                    this.blockLight[i] = section.getBlocklightArray().getData().clone();
+                    this.skyLight[i] = hasSky ? section.getSkylightArray().getData().clone() : new byte[this.blockLight[i].length];
+                    i++;
+                }
+            }
+            level.setByteArray("Biomes", chunk.getBiomeArray().clone());
+
+            chunk.setHasEntities(false);
+            NBTTagList entities = new NBTTagList();
+            for (List<?> entityList : chunk.getEntityLists()) {
+                for (Object o : entityList) {
+                    Entity entity = (Entity) o;
+                    NBTTagCompound compound = new NBTTagCompound();
+                    try {
+                        if (entity.writeToNBTOptional(compound)) {
+                            chunk.setHasEntities(true);
+                            entities.appendTag(compound);
+                        }
+                    } catch (Exception e) {
+                        SpongeMod.instance.getLogger().error("An entity of type " + entity.getClass().getName()
+                                + " has thrown an exception trying to write state. It will not persist.", e);
+                    }
+                }
+            }
+            level.setTag("Entities", entities);
+
+            NBTTagList tileEntities = new NBTTagList();
+            for (Object o : chunk.getTileEntityMap().values()) {
+                TileEntity tileEntity = (TileEntity) o;
+                NBTTagCompound compound = new NBTTagCompound();
+                try {
+                    tileEntity.writeToNBT(compound);
+                    tileEntities.appendTag(compound);
+                } catch (Exception e) {
+                    SpongeMod.instance.getLogger().error("A tile entity of type " + tileEntity.getClass().getName()
+                            + " has thrown an exception trying to write state. It will not persist.", e);
+                }
+            }
+            level.setTag("TileEntities", tileEntities);
+
+            List<?> ticks = world.getPendingBlockUpdates(chunk, false);
+            if (ticks != null) {
+                long time = world.getTotalWorldTime();
+                NBTTagList tileTicks = new NBTTagList();
+                for (Object o : ticks) {
+                    NextTickListEntry entry = (NextTickListEntry) o;
+                    NBTTagCompound compound = new NBTTagCompound();
+                    ResourceLocation name = (ResourceLocation) Block.blockRegistry.getNameForObject(entry.getBlock());
+                    compound.setString("i", name == null ? "" : name.toString());
+                    compound.setInteger("x", entry.position.getX());
+                    compound.setInteger("y", entry.position.getY());
+                    compound.setInteger("z", entry.position.getZ());
+                    compound.setInteger("t", (int) (entry.scheduledTime - time));
+                    compound.setInteger("p", entry.priority);
+                    tileTicks.appendTag(compound);
+                }
+                level.setTag("TileTicks", tileTicks);
+            }
+
+            ForgeChunkManager.storeChunkNBT(chunk, level);
+            ChunkDataEvent.Save event = new ChunkDataEvent.Save(chunk, this.root);
+            // Listeners read the full compound, so the sections are only deferred if nobody listens
+            this.deferSections = !((IMixinEventBus) MinecraftForge.EVENT_BUS).hasListeners(event);
+            if (!this.deferSections) {
+                level.setTag("Sections", buildSections());
+            }
+            MinecraftForge.EVENT_BUS.post(event);
+        }
+
+        /**
+         * Builds the full chunk compound. Safe to call from any thread, and
+         * each call returns a new compound.
+         *
+         * @return The chunk compound
+         */
+        NBTTagCompound toNBT() {
+            NBTTagCompound root = (NBTTagCompound) this.root.copy();
+            if (this.deferSections) {
+                root.getCompoundTag("Level").setTag("Sections", buildSections());
+            }
+            return root;
+        }
+
+        private NBTTagList buildSections() {
+            NBTTagList sections = new NBTTagList();
+            for (int i = 0; i < this.sectionY.length; i++) {
+                char[] data = this.blocks[i];
+                NBTTagCompound section = new NBTTagCompound();
+                section.setByte("Y", (byte) this.sectionY[i]);
+                byte[] blockIds = new byte[data.length];
+                NibbleArray metadata = new NibbleArray();
+                NibbleArray add = null;
+
+                for (int k = 0; k < data.length; ++k) {
+                    char state = data[k];
+                    int x = k & 15;
+                    int y = k >> 8 & 15;
+                    int z = k >> 4 & 15;
+                    if (state >> 12 != 0) {
+                        if (add == null) {
+                            add = new NibbleArray();
+                        }
+                        add.set(x, y, z, state >> 12);
+                    }
+                    blockIds[k] = (byte) (state >> 4 & 255);
+                    metadata.set(x, y, z, state & 15);
+                }
+
+                section.setByteArray("Blocks", blockIds);
+                section.setByteArray("Data", metadata.getData());
+                if (add != null) {
+                    section.setByteArray("Add", add.getData());
+                }
+                section.setByteArray("BlockLight", this.blockLight[i]);
+                section.setByteArray("SkyLight", this.skyLight[i]);
+                sections.appendTag(section);
+            }
+            return sections;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.world.storage;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import net.minecraft.world.chunk.storage.AnvilSaveHandler;
+import net.minecraft.world.storage.WorldInfo;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.annotation.Nullable;
+
+/**
+ * Creates the save handlers of several worlds and reads their world info at
+ * the same time, so loading every world at startup does not wait for each
+ * world's disk reads in turn.
+ *
+ * <p>Building the worlds themselves stays on the main thread. The caller
+ * submits every dimension first, then asks for each result in the order it
+ * builds the worlds.</p>
+ */
+public class WorldStorageLoader {
+
+    private final ExecutorService executor;
+    private final Map<Integer, Future<Storage>> storage = new HashMap<Integer, Future<Storage>>();
+
+    public WorldStorageLoader(int threads) {
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads),
+                new ThreadFactoryBuilder().setNameFormat("Sponge World Loader #%d").setDaemon(true).build());
+    }
+
+    /**
+     * Starts creating the save handler of a dimension.
+     *
+     * @param dim The dimension id
+     * @param savesDirectory The directory holding the world folder
+     * @param worldFolder The name of the world folder
+     * @param readWorldInfo Whether the world info may be read concurrently.
+     *     It is then still read on the calling thread if it has to fall back
+     *     to the backup level.dat, as that asks the user for confirmation.
+     */
+    public void submit(int dim, final File savesDirectory, final String worldFolder, final boolean readWorldInfo) {
+        this.storage.put(dim, this.executor.submit(new Callable<Storage>() {
+
+            @Override
+            public Storage call() throws Exception {
+                AnvilSaveHandler saveHandler = new AnvilSaveHandler(savesDirectory, worldFolder, true);
+                File directory = saveHandler.getWorldDirectory();
+                if (!readWorldInfo || (!new File(directory, "level.dat").exists() && new File(directory, "level.dat_old").exists())) {
+                    return new Storage(saveHandler, null, false);
+                }
+                return new Storage(saveHandler, saveHandler.loadWorldInfo(), true);
+            }
+        }));
+    }
+
+    /**
+     * Gets the save handler of a submitted dimension, waiting for it to be
+     * created.
+     *
+     * @param dim The dimension id
+     * @return The save handler
+     */
+    public AnvilSaveHandler getSaveHandler(int dim) {
+        return get(dim).saveHandler;
+    }
+
+    /**
+     * Gets the world info of a submitted dimension, reading it on the
+     * calling thread if it was not read concurrently.
+     *
+     * @param dim The dimension id
+     * @return The world info, or null if the world has none saved
+     */
+    @Nullable
+    public WorldInfo getWorldInfo(int dim) {
+        Storage storage = get(dim);
+        return storage.read ? storage.worldInfo : storage.saveHandler.loadWorldInfo();
+    }
+
+    /**
+     * Stops the loader threads once all submitted dimensions are done.
+     */
+    public void shutdown() {
+        this.executor.shutdown();
+    }
+
+    private Storage get(int dim) {
+        Future<Storage> future = this.storage.get(dim);
+        if (future == null) {
+            throw new IllegalStateException("Dimension " + dim + " was not submitted");
+        }
+        try {
+            return Uninterruptibles.getUninterruptibly(future);
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    private static final class Storage {
+
+        final AnvilSaveHandler saveHandler;
+        @Nullable final WorldInfo worldInfo;
+        final boolean read;
+
+        Storage(AnvilSaveHandler saveHandler, @Nullable WorldInfo worldInfo, boolean read) {
+            this.saveHandler = saveHandler;
+            this.worldInfo = worldInfo;
+            this.read = read;
+        }
+    }
+}
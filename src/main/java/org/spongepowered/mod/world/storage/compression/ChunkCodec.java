@@ -0,0 +1,72 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.world.storage.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A compression format of the chunks in a region file.
+ *
+ * <p>Every chunk is stored with the version of the codec it was compressed
+ * with, so a region may hold chunks of several codecs.</p>
+ */
+public interface ChunkCodec {
+
+    /**
+     * Gets the version stored in front of the chunks compressed with this
+     * codec.
+     *
+     * @return The version
+     */
+    byte getVersion();
+
+    /**
+     * Gets the name of this codec, as used in the config.
+     *
+     * @return The name
+     */
+    String getName();
+
+    /**
+     * Wraps a stream to decompress the data read from it.
+     *
+     * @param in The stream of compressed data
+     * @return A stream of the decompressed data
+     * @throws IOException If the stream could not be read
+     */
+    InputStream decompress(InputStream in) throws IOException;
+
+    /**
+     * Wraps a stream to compress the data written to it. The data is only
+     * complete once the returned stream is closed.
+     *
+     * @param out The stream to write the compressed data to
+     * @return A stream compressing the data written to it
+     * @throws IOException If the stream could not be written
+     */
+    OutputStream compress(OutputStream out) throws IOException;
+}
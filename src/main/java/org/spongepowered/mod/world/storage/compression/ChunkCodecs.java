@@ -0,0 +1,138 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.world.storage.compression;
+
+import org.spongepowered.mod.configuration.SpongeConfig;
+import org.spongepowered.mod.mixin.plugin.CoreMixinPlugin;
+
+/**
+ * The chunk codecs known to Sponge.
+ */
+public final class ChunkCodecs {
+
+    public static final int DEFAULT_LEVEL = 6;
+
+    public static final ChunkCodec LZ = new LzChunkCodec();
+
+    private static final DeflateChunkCodec[] deflate = new DeflateChunkCodec[10];
+    private static final GzipChunkCodec[] gzip = new GzipChunkCodec[10];
+
+    static {
+        for (int level = 0; level < deflate.length; level++) {
+            deflate[level] = new DeflateChunkCodec(level);
+            gzip[level] = new GzipChunkCodec(level);
+        }
+    }
+
+    private ChunkCodecs() {
+    }
+
+    /**
+     * Gets the deflate codec of a level, from 0 for no compression to 9 for
+     * the smallest output.
+     *
+     * @param level The level, clamped to 0 to 9
+     * @return The codec
+     */
+    public static DeflateChunkCodec deflate(int level) {
+        return deflate[Math.max(0, Math.min(9, level))];
+    }
+
+    /**
+     * Gets the gzip codec of a level, from 0 for no compression to 9 for the
+     * smallest output.
+     *
+     * @param level The level, clamped to 0 to 9
+     * @return The codec
+     */
+    public static GzipChunkCodec gzip(int level) {
+        return gzip[Math.max(0, Math.min(9, level))];
+    }
+
+    /**
+     * Gets the codec chunks of a version were compressed with.
+     *
+     * @param version The version stored with the chunk
+     * @return The codec, or null if the version is unknown
+     */
+    public static ChunkCodec getByVersion(byte version) {
+        switch (version) {
+            case GzipChunkCodec.VERSION:
+                return gzip(DEFAULT_LEVEL);
+            case DeflateChunkCodec.VERSION:
+                return deflate(DEFAULT_LEVEL);
+            case LzChunkCodec.VERSION:
+                return LZ;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Gets a codec by name.
+     *
+     * @param name The name of the codec
+     * @param level The level of deflate and gzip
+     * @return The codec, or null if the name is unknown
+     */
+    public static ChunkCodec getByName(String name, int level) {
+        if ("deflate".equalsIgnoreCase(name)) {
+            return deflate(level);
+        } else if ("gzip".equalsIgnoreCase(name)) {
+            return gzip(level);
+        } else if (LZ.getName().equalsIgnoreCase(name)) {
+            return LZ;
+        }
+        return null;
+    }
+
+    /**
+     * Gets the configured codec chunks are written with.
+     *
+     * @return The codec
+     */
+    public static ChunkCodec getDefault() {
+        SpongeConfig<SpongeConfig.GlobalConfig> config = CoreMixinPlugin.getGlobalConfig();
+        if (config == null || config.getConfig() == null) {
+            return deflate(DEFAULT_LEVEL);
+        }
+        SpongeConfig.IoCategory io = config.getConfig().getIo();
+        ChunkCodec codec = getByName(io.getChunkCompression(), io.getCompressionLevel());
+        return codec == null ? deflate(io.getCompressionLevel()) : codec;
+    }
+
+    /**
+     * Gets the configured level of deflate and gzip.
+     *
+     * @return The level
+     */
+    public static int getLevel() {
+        SpongeConfig<SpongeConfig.GlobalConfig> config = CoreMixinPlugin.getGlobalConfig();
+        if (config == null || config.getConfig() == null) {
+            return DEFAULT_LEVEL;
+        }
+        return Math.max(0, Math.min(9, config.getConfig().getIo().getCompressionLevel()));
+    }
+}
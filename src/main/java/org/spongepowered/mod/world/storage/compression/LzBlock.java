@@ -0,0 +1,189 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.world.storage.compression;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Compresses blocks of bytes with a byte oriented LZ77 scheme in the
+ * spirit of LZ4, trading ratio for speed.
+ *
+ * <p>A block is a list of sequences. Each starts with a token holding the
+ * number of literals in its high nibble and the match length minus 4 in its
+ * low nibble, a nibble of 15 being continued by bytes of up to 255. The
+ * literals follow, then the little endian match offset. The last sequence of
+ * a block only has literals.</p>
+ */
+final class LzBlock {
+
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    private static final int MIN_MATCH = 4;
+    private static final int MAX_OFFSET = 65535;
+    private static final int HASH_BITS = 14;
+    // Literal runs longer than this are scanned faster, they likely do not compress
+    private static final int SKIP_SHIFT = 6;
+
+    private LzBlock() {
+    }
+
+    static int[] createTable() {
+        return new int[1 << HASH_BITS];
+    }
+
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses a block.
+     *
+     * @param src The bytes to compress
+     * @param length The number of bytes to compress
+     * @param dst The array to write to, at least
+     *        {@link #maxCompressedLength} long
+     * @param table A table from {@link #createTable}
+     * @return The compressed length
+     */
+    static int compress(byte[] src, int length, byte[] dst, int[] table) {
+        Arrays.fill(table, -1);
+        int anchor = 0;
+        int i = 0;
+        int op = 0;
+        while (i <= length - MIN_MATCH) {
+            int sequence = readInt(src, i);
+            int hash = sequence * -1640531535 >>> 32 - HASH_BITS;
+            int ref = table[hash];
+            table[hash] = i;
+            if (ref >= 0 && i - ref <= MAX_OFFSET && readInt(src, ref) == sequence) {
+                int matchLength = MIN_MATCH;
+                while (i + matchLength < length && src[ref + matchLength] == src[i + matchLength]) {
+                    matchLength++;
+                }
+                op = writeSequence(src, anchor, i - anchor, i - ref, matchLength, dst, op);
+                i += matchLength;
+                anchor = i;
+            } else {
+                i += 1 + (i - anchor >>> SKIP_SHIFT);
+            }
+        }
+        return writeSequence(src, anchor, length - anchor, 0, 0, dst, op);
+    }
+
+    /**
+     * Decompresses a block.
+     *
+     * @param src The compressed bytes
+     * @param srcLength The number of compressed bytes
+     * @param dst The array to write to
+     * @param dstLength The decompressed length
+     * @throws IOException If the block is corrupt
+     */
+    static void decompress(byte[] src, int srcLength, byte[] dst, int dstLength) throws IOException {
+        int ip = 0;
+        int op = 0;
+        try {
+            while (true) {
+                int token = src[ip++] & 255;
+                int literals = token >>> 4;
+                if (literals == 15) {
+                    int b;
+                    do {
+                        b = src[ip++] & 255;
+                        literals += b;
+                    } while (b == 255);
+                }
+                if (ip + literals > srcLength || op + literals > dstLength) {
+                    throw new IOException("Corrupt LZ block");
+                }
+                System.arraycopy(src, ip, dst, op, literals);
+                ip += literals;
+                op += literals;
+                if (op == dstLength) {
+                    break;
+                }
+
+                int offset = src[ip++] & 255 | (src[ip++] & 255) << 8;
+                int matchLength = token & 15;
+                if (matchLength == 15) {
+                    int b;
+                    do {
+                        b = src[ip++] & 255;
+                        matchLength += b;
+                    } while (b == 255);
+                }
+                matchLength += MIN_MATCH;
+                int ref = op - offset;
+                if (offset == 0 || ref < 0 || op + matchLength > dstLength) {
+                    throw new IOException("Corrupt LZ block");
+                }
+                // Byte by byte, as a match may overlap the bytes it produces
+                for (int end = op + matchLength; op < end;) {
+                    dst[op++] = dst[ref++];
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Corrupt LZ block", e);
+        }
+        if (ip != srcLength) {
+            throw new IOException("Corrupt LZ block");
+        }
+    }
+
+    private static int writeSequence(byte[] src, int start, int literals, int offset, int matchLength, byte[] dst, int op) {
+        int tokenPosition = op++;
+        int token = Math.min(literals, 15) << 4;
+        if (literals >= 15) {
+            op = writeLength(literals - 15, dst, op);
+        }
+        System.arraycopy(src, start, dst, op, literals);
+        op += literals;
+        if (matchLength > 0) {
+            int length = matchLength - MIN_MATCH;
+            token |= Math.min(length, 15);
+            dst[op++] = (byte) offset;
+            dst[op++] = (byte) (offset >>> 8);
+            if (length >= 15) {
+                op = writeLength(length - 15, dst, op);
+            }
+        }
+        dst[tokenPosition] = (byte) token;
+        return op;
+    }
+
+    private static int writeLength(int length, byte[] dst, int op) {
+        while (length >= 255) {
+            dst[op++] = (byte) 255;
+            length -= 255;
+        }
+        dst[op++] = (byte) length;
+        return op;
+    }
+
+    private static int readInt(byte[] src, int i) {
+        return src[i] & 255 | (src[i + 1] & 255) << 8 | (src[i + 2] & 255) << 16 | (src[i + 3] & 255) << 24;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.world.storage.compression;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decompresses the blocks written by a {@link LzOutputStream}.
+ */
+public class LzInputStream extends InputStream {
+
+    private final DataInputStream in;
+    private final byte[] buffer = new byte[LzBlock.BLOCK_SIZE];
+    private byte[] compressed = new byte[0];
+    private int position;
+    private int limit;
+
+    public LzInputStream(InputStream in) {
+        this.in = new DataInputStream(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (this.position == this.limit && !readBlock()) {
+            return -1;
+        }
+        return this.buffer[this.position++] & 255;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (this.position == this.limit && !readBlock()) {
+            return -1;
+        }
+        int n = Math.min(len, this.limit - this.position);
+        System.arraycopy(this.buffer, this.position, b, off, n);
+        this.position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return this.limit - this.position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+
+    private boolean readBlock() throws IOException {
+        int first = this.in.read();
+        if (first < 0) {
+            return false;
+        }
+        int length = first << 24 | this.in.readUnsignedByte() << 16 | this.in.readUnsignedShort();
+        int compressedLength = this.in.readInt();
+        if (length <= 0 || length > this.buffer.length || compressedLength < 0 || compressedLength >= length) {
+            throw new IOException("Corrupt LZ stream");
+        }
+        if (compressedLength == 0) {
+            this.in.readFully(this.buffer, 0, length);
+        } else {
+            if (this.compressed.length < compressedLength) {
+                this.compressed = new byte[LzBlock.maxCompressedLength(LzBlock.BLOCK_SIZE)];
+            }
+            this.in.readFully(this.compressed, 0, compressedLength);
+            LzBlock.decompress(this.compressed, compressedLength, this.buffer, length);
+        }
+        this.position = 0;
+        this.limit = length;
+        return true;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.world.storage.compression;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compresses the data written to it into {@link LzBlock}s.
+ *
+ * <p>Each block is written as its decompressed length, its compressed length
+ * and the compressed bytes. A compressed length of 0 marks a block stored
+ * as is because it did not compress.</p>
+ */
+public class LzOutputStream extends OutputStream {
+
+    private final DataOutputStream out;
+    private final byte[] buffer = new byte[LzBlock.BLOCK_SIZE];
+    private final byte[] compressed = new byte[LzBlock.maxCompressedLength(LzBlock.BLOCK_SIZE)];
+    private final int[] table = LzBlock.createTable();
+    private int count;
+    private boolean closed;
+
+    public LzOutputStream(OutputStream out) {
+        this.out = new DataOutputStream(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (this.count == this.buffer.length) {
+            writeBlock();
+        }
+        this.buffer[this.count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (this.count == this.buffer.length) {
+                writeBlock();
+            }
+            int n = Math.min(len, this.buffer.length - this.count);
+            System.arraycopy(b, off, this.buffer, this.count, n);
+            this.count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeBlock();
+        this.out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            writeBlock();
+        } finally {
+            this.out.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (this.count == 0) {
+            return;
+        }
+        int length = LzBlock.compress(this.buffer, this.count, this.compressed, this.table);
+        this.out.writeInt(this.count);
+        if (length < this.count) {
+            this.out.writeInt(length);
+            this.out.write(this.compressed, 0, length);
+        } else {
+            this.out.writeInt(0);
+            this.out.write(this.buffer, 0, this.count);
+        }
+        this.count = 0;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.spongepowered.api.event.Cancellable;
+import org.spongepowered.api.event.Event;
+import org.spongepowered.api.event.Subscribe;
+
+public class DispatcherHandlerFactoryTest {
+
+    private final HandlerFactory factory = new DispatcherHandlerFactory("org.spongepowered.mod.event.dispatcher.test");
+
+    @Test
+    public void testDispatchesToMethod() throws Exception {
+        TestListener listener = new TestListener();
+        Handler first = this.factory.createHandler(listener, TestListener.class.getMethod("onFirst", FirstEvent.class), false);
+        Handler second = this.factory.createHandler(listener, TestListener.class.getMethod("onSecond", SecondEvent.class), false);
+
+        first.handle(Mockito.mock(FirstEvent.class));
+        second.handle(Mockito.mock(SecondEvent.class));
+        second.handle(Mockito.mock(SecondEvent.class));
+
+        assertEquals(1, listener.first);
+        assertEquals(2, listener.second);
+    }
+
+    @Test
+    public void testIgnoreCancelled() throws Exception {
+        TestListener listener = new TestListener();
+        Handler handler = this.factory.createHandler(listener, TestListener.class.getMethod("onSecond", SecondEvent.class), true);
+
+        SecondEvent event = Mockito.mock(SecondEvent.class);
+        Mockito.when(event.isCancelled()).thenReturn(true);
+        handler.handle(event);
+
+        assertEquals(0, listener.second);
+    }
+
+    @Test
+    public void testHandlerEquality() throws Exception {
+        TestListener listener = new TestListener();
+        Handler handler = this.factory.createHandler(listener, TestListener.class.getMethod("onFirst", FirstEvent.class), false);
+
+        assertEquals(handler, this.factory.createHandler(listener, TestListener.class.getMethod("onFirst", FirstEvent.class), false));
+        assertEquals(handler.hashCode(),
+                this.factory.createHandler(listener, TestListener.class.getMethod("onFirst", FirstEvent.class), false).hashCode());
+        assertNotEquals(handler, this.factory.createHandler(listener, TestListener.class.getMethod("onSecond", SecondEvent.class), false));
+        assertNotEquals(handler, this.factory.createHandler(new TestListener(), TestListener.class.getMethod("onFirst", FirstEvent.class), false));
+    }
+
+    public interface FirstEvent extends Event {
+    }
+
+    public interface SecondEvent extends Event, Cancellable {
+    }
+
+    public static class TestListener {
+
+        int first;
+        int second;
+
+        @Subscribe
+        public void onFirst(FirstEvent event) {
+            this.first++;
+        }
+
+        @Subscribe
+        public void onSecond(SecondEvent event) {
+            this.second++;
+        }
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.event;
+
+import org.mockito.Mockito;
+import org.spongepowered.api.event.Event;
+import org.spongepowered.api.event.Subscribe;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares {@link HandlerClassFactory} with {@link DispatcherHandlerFactory}.
+ *
+ * <p>
+ * This is not a unit test; run it manually with the test classpath. Each
+ * round uses fresh factories so handler class generation is measured, not
+ * only cache lookups.
+ * </p>
+ */
+public final class HandlerFactoryBenchmark {
+
+    private static final int ROUNDS = 500;
+    private static final int CALLS = 10000000;
+
+    private HandlerFactoryBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Method> methods = new ArrayList<Method>();
+        for (Method method : BenchmarkListener.class.getMethods()) {
+            if (method.isAnnotationPresent(Subscribe.class)) {
+                methods.add(method);
+            }
+        }
+        BenchmarkEvent event = Mockito.mock(BenchmarkEvent.class);
+
+        for (int pass = 0; pass < 2; pass++) {
+            System.out.println(pass == 0 ? "Warm up" : "Measure");
+            run("class", new FactoryProvider() {
+
+                @Override
+                public HandlerFactory create(int round) {
+                    return new HandlerClassFactory("org.spongepowered.mod.event.benchmark.class" + round);
+                }
+            }, methods, event);
+            run("dispatcher", new FactoryProvider() {
+
+                @Override
+                public HandlerFactory create(int round) {
+                    return new DispatcherHandlerFactory("org.spongepowered.mod.event.benchmark.dispatcher" + round);
+                }
+            }, methods, event);
+        }
+    }
+
+    private static void run(String name, FactoryProvider provider, List<Method> methods, Event event) throws Exception {
+        List<Handler> handlers = new ArrayList<Handler>();
+
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            handlers.clear();
+            HandlerFactory factory = provider.create(round);
+            BenchmarkListener listener = new BenchmarkListener();
+            for (Method method : methods) {
+                handlers.add(factory.createHandler(listener, method, false));
+            }
+        }
+        long createNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            handlers.get(i % handlers.size()).handle(event);
+        }
+        long callNanos = System.nanoTime() - start;
+
+        System.out.println(String.format("  %-10s create: %8.1fus per listener, dispatch: %6.2fns per call", name,
+                createNanos / 1000.0D / ROUNDS, (double) callNanos / CALLS));
+    }
+
+    private interface FactoryProvider {
+
+        HandlerFactory create(int round);
+    }
+
+    public interface BenchmarkEvent extends Event {
+    }
+
+    public static class BenchmarkListener {
+
+        public int calls;
+
+        @Subscribe
+        public void on1(BenchmarkEvent event) {
+            this.calls++;
+        }
+
+        @Subscribe
+        public void on2(BenchmarkEvent event) {
+            this.calls++;
+        }
+
+        @Subscribe
+        public void on3(BenchmarkEvent event) {
+            this.calls++;
+        }
+
+        @Subscribe
+        public void on4(BenchmarkEvent event) {
+            this.calls++;
+        }
+
+        @Subscribe
+        public void on5(BenchmarkEvent event) {
+            this.calls++;
+        }
+
+        @Subscribe
+        public void on6(BenchmarkEvent event) {
+            this.calls++;
+        }
+
+        @Subscribe
+        public void on7(BenchmarkEvent event) {
+            this.calls++;
+        }
+
+        @Subscribe
+        public void on8(BenchmarkEvent event) {
+            this.calls++;
+        }
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.event;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import net.minecraftforge.fml.common.eventhandler.EventPriority;
+import net.minecraftforge.fml.common.eventhandler.IEventListener;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.spongepowered.api.event.Event;
+import org.spongepowered.api.event.Order;
+import org.spongepowered.api.event.Subscribe;
+import org.spongepowered.api.plugin.PluginContainer;
+import org.spongepowered.api.plugin.PluginManager;
+
+public class SpongeEventBusTest {
+
+    private SpongeEventBus bus;
+    private PluginContainer plugin;
+
+    @Before
+    public void setUp() {
+        this.bus = new SpongeEventBus(Mockito.mock(PluginManager.class));
+        this.plugin = Mockito.mock(PluginContainer.class);
+    }
+
+    @Test
+    public void testRegisterKeepsUnrelatedCaches() {
+        HandlerCache other = this.bus.getHandlerCache(OtherEvent.class);
+        HandlerCache test = this.bus.getHandlerCache(TestEvent.class);
+
+        this.bus.register(TestEvent.class, new NoopHandler(), Order.DEFAULT, this.plugin);
+
+        assertSame(other, this.bus.getHandlerCache(OtherEvent.class));
+        assertNotSame(test, this.bus.getHandlerCache(TestEvent.class));
+    }
+
+    @Test
+    public void testRegisterRebuildsSubtypeCaches() {
+        assertEquals(0, this.bus.getHandlerCache(SubTestEvent.class).getHandlers().length);
+
+        Handler handler = new NoopHandler();
+        this.bus.register(TestEvent.class, handler, Order.LATE, this.plugin);
+
+        HandlerCache cache = this.bus.getHandlerCache(SubTestEvent.class);
+        assertArrayEquals(new Object[] {handler}, unwrap(cache.getHandlers()));
+        assertArrayEquals(new Object[] {handler}, unwrap(cache.getHandlersByOrder(Order.LATE)));
+        assertEquals(0, cache.getHandlersByOrder(Order.DEFAULT).length);
+    }
+
+    @Test
+    public void testUnregisterKeepsUnrelatedCaches() {
+        Handler handler = new NoopHandler();
+        this.bus.register(TestEvent.class, handler, Order.DEFAULT, this.plugin);
+
+        HandlerCache other = this.bus.getHandlerCache(OtherEvent.class);
+        assertEquals(1, this.bus.getHandlerCache(SubTestEvent.class).getHandlers().length);
+
+        this.bus.unregister(TestEvent.class, handler);
+
+        assertSame(other, this.bus.getHandlerCache(OtherEvent.class));
+        assertEquals(0, this.bus.getHandlerCache(SubTestEvent.class).getHandlers().length);
+    }
+
+    @Test
+    public void testForgePlanInterleavesOrders() {
+        Handler pre = new NoopHandler();
+        Handler early = new NoopHandler();
+        Handler late = new NoopHandler();
+        this.bus.register(TestEvent.class, pre, Order.PRE, this.plugin);
+        this.bus.register(TestEvent.class, early, Order.EARLY, this.plugin);
+        this.bus.register(TestEvent.class, late, Order.LATE, this.plugin);
+
+        IEventListener forgeListener = Mockito.mock(IEventListener.class);
+        IEventListener[] listeners = {EventPriority.HIGHEST, EventPriority.HIGH, forgeListener, EventPriority.NORMAL};
+        HandlerCache cache = this.bus.getHandlerCache(TestEvent.class);
+        ForgeDispatchPlan plan = cache.getForgePlan(listeners);
+
+        assertArrayEquals(new Object[] {pre, EventPriority.HIGHEST, early, EventPriority.HIGH, forgeListener, EventPriority.NORMAL, late},
+                unwrap(plan.getEntries()));
+        assertSame(plan, cache.getForgePlan(listeners));
+    }
+
+    @Test
+    public void testTimingsRecordCalls() {
+        this.bus.register(TestEvent.class, new NoopHandler(), Order.DEFAULT, this.plugin);
+
+        this.bus.post(Mockito.mock(TestEvent.class));
+        this.bus.post(Mockito.mock(TestEvent.class));
+
+        HandlerTimings timings = this.bus.getTimings().get(0);
+        assertSame(this.plugin, timings.getPlugin());
+        assertSame(TestEvent.class, timings.getEventClass());
+        assertEquals(NoopHandler.class.getName(), timings.getHandlerName());
+        assertEquals(2, timings.getCalls());
+        assertEquals(0, timings.getExceptions());
+
+        this.bus.resetTimings();
+        assertEquals(0, timings.getCalls());
+    }
+
+    @Test
+    public void testBatchRegistration() {
+        this.bus.startBatchRegistration();
+
+        this.bus.register(this.plugin, new TestListener());
+        assertTrue(this.bus.getHandlerCache(OtherEvent.class).isEmpty());
+        assertTrue(this.bus.getTimings().isEmpty());
+        assertEquals(1, this.bus.getHandlerCache(SubTestEvent.class).getHandlers().length);
+
+        this.bus.register(this.plugin, new TestListener());
+        this.bus.finishBatchRegistration();
+        assertEquals(2, this.bus.getHandlerCache(SubTestEvent.class).getHandlers().length);
+    }
+
+    private static Object[] unwrap(Object[] entries) {
+        Object[] unwrapped = new Object[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i] instanceof RegisteredHandler) {
+                unwrapped[i] = ((RegisteredHandler) entries[i]).getHandler();
+            } else {
+                unwrapped[i] = entries[i];
+            }
+        }
+        return unwrapped;
+    }
+
+    public interface TestEvent extends Event {
+    }
+
+    public interface SubTestEvent extends TestEvent {
+    }
+
+    interface OtherEvent extends Event {
+    }
+
+    public static class TestListener {
+
+        @Subscribe
+        public void onTest(TestEvent event) {
+        }
+    }
+
+    private static class NoopHandler implements Handler {
+
+        @Override
+        public void handle(Event event) {
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.service.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.spongepowered.api.plugin.PluginContainer;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AsyncSchedulerTest {
+
+    private AsyncScheduler scheduler;
+    private PluginContainer plugin;
+
+    @Before
+    public void setUp() {
+        this.scheduler = new AsyncScheduler(4, 2);
+        this.plugin = Mockito.mock(PluginContainer.class);
+        Mockito.when(this.plugin.getId()).thenReturn("test");
+    }
+
+    @After
+    public void tearDown() {
+        this.scheduler.shutdown();
+    }
+
+    @Test
+    public void testStressOneHundredThousandTimers() throws InterruptedException {
+        final int count = 100000;
+        final CountDownLatch latch = new CountDownLatch(count);
+        Runnable body = new Runnable() {
+
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        };
+
+        Random random = new Random(0);
+        for (int i = 0; i < count; i++) {
+            this.scheduler.utilityForAddingAsyncTask(createTask(random.nextInt(500), 0L, body));
+        }
+
+        assertTrue(latch.await(60, TimeUnit.SECONDS));
+        assertEquals(0, this.scheduler.getScheduledTasks().size());
+        assertEquals(0, this.scheduler.getPendingTimerCount());
+    }
+
+    @Test
+    public void testPluginConcurrencyLimit() throws InterruptedException {
+        final int count = 20;
+        final CountDownLatch latch = new CountDownLatch(count);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        Runnable body = new Runnable() {
+
+            @Override
+            public void run() {
+                int now = running.incrementAndGet();
+                while (true) {
+                    int max = maxRunning.get();
+                    if (now <= max || maxRunning.compareAndSet(max, now)) {
+                        break;
+                    }
+                }
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                latch.countDown();
+            }
+        };
+
+        for (int i = 0; i < count; i++) {
+            this.scheduler.utilityForAddingAsyncTask(createTask(0L, 0L, body));
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertTrue(maxRunning.get() <= 2);
+        assertEquals(0, this.scheduler.getQueueDepth("test"));
+    }
+
+    @Test
+    public void testCancelStopsRepeatingTask() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(3);
+        final AtomicInteger runs = new AtomicInteger();
+        ScheduledTask task = createTask(0L, 5L, new Runnable() {
+
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+                latch.countDown();
+            }
+        });
+        this.scheduler.utilityForAddingAsyncTask(task);
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        task.cancel();
+        Thread.sleep(50);
+        int afterCancel = runs.get();
+        Thread.sleep(50);
+
+        assertEquals(afterCancel, runs.get());
+        assertEquals(0, this.scheduler.getScheduledTasks().size());
+    }
+
+    private ScheduledTask createTask(long offset, long period, Runnable body) {
+        return new ScheduledTask(offset, period, ScheduledTask.TaskSynchroncity.ASYNCHRONOUS)
+                .setPluginContainer(this.plugin)
+                .setRunnableBody(body);
+    }
+}
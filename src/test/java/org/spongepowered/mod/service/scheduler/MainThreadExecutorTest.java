@@ -0,0 +1,133 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.service.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+public class MainThreadExecutorTest {
+
+    private MainThreadExecutor executor;
+
+    @Before
+    public void setUp() {
+        this.executor = new MainThreadExecutor();
+    }
+
+    @Test
+    public void testDrainRunsInSubmissionOrder() {
+        final List<Integer> order = new ArrayList<Integer>();
+        for (int i = 0; i < 5; i++) {
+            final int value = i;
+            this.executor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    order.add(value);
+                }
+            });
+        }
+
+        assertEquals(5, this.executor.getQueueDepth());
+        this.executor.drain(0L);
+
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), order);
+        assertEquals(0, this.executor.getQueueDepth());
+    }
+
+    @Test
+    public void testWorkSubmittedWhileDrainingWaitsForNextTick() {
+        final List<String> order = new ArrayList<String>();
+        this.executor.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                order.add("first");
+                MainThreadExecutorTest.this.executor.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        order.add("second");
+                    }
+                });
+            }
+        });
+
+        this.executor.drain(0L);
+        assertEquals(Arrays.asList("first"), order);
+
+        this.executor.drain(0L);
+        assertEquals(Arrays.asList("first", "second"), order);
+    }
+
+    @Test
+    public void testBudgetDefersRemainingWork() {
+        Runnable slow = new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        for (int i = 0; i < 10; i++) {
+            this.executor.execute(slow);
+        }
+
+        this.executor.drain(TimeUnit.MILLISECONDS.toNanos(1));
+
+        assertTrue(this.executor.getQueueDepth() > 0);
+        assertEquals(1, this.executor.getDeferredTickCount());
+    }
+
+    @Test
+    public void testCallSyncCompletesFuture() throws Exception {
+        ListenableFuture<String> future = this.executor.callSync(new Callable<String>() {
+
+            @Override
+            public String call() {
+                return "done";
+            }
+        });
+
+        assertFalse(future.isDone());
+        this.executor.drain(0L);
+        assertEquals("done", future.get());
+    }
+}
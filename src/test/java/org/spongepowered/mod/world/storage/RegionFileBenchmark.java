@@ -0,0 +1,237 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.world.storage;
+
+import net.minecraft.world.chunk.storage.RegionFileCache;
+import org.spongepowered.mod.world.storage.compression.ChunkCodec;
+import org.spongepowered.mod.world.storage.compression.ChunkCodecs;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compares vanilla's {@link RegionFileCache} with the
+ * {@link MappedRegionCache}.
+ *
+ * <p>
+ * This is not a unit test; run it manually with the test classpath. It
+ * writes and reads a synthetic world of 32x32 regions in a temporary
+ * directory, visiting the regions in turn the way players spread over a world
+ * do, with both the deflate and the LZ chunk codecs. The arguments are the chunks written per region, the number of reader
+ * threads and the size of the mapped region cache.
+ * </p>
+ */
+public final class RegionFileBenchmark {
+
+    private static final int REGIONS = 32;
+    private static final int CHUNK_BYTES = 16 * 1024;
+
+    private RegionFileBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int chunksPerRegion = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int cacheSize = args.length > 2 ? Integer.parseInt(args[2]) : REGIONS * REGIONS;
+
+        byte[] chunk = createChunk();
+        List<int[]> chunks = new ArrayList<int[]>();
+        // One chunk of every region, then the next chunk of every region
+        for (int i = 0; i < chunksPerRegion; i++) {
+            for (int regionX = 0; regionX < REGIONS; regionX++) {
+                for (int regionZ = 0; regionZ < REGIONS; regionZ++) {
+                    chunks.add(new int[] {regionX * 32 + i % 32, regionZ * 32 + i / 32 % 32});
+                }
+            }
+        }
+        System.out.println(String.format("%d chunks of %d regions, %d reader threads", chunks.size(), REGIONS * REGIONS, threads));
+
+        for (int pass = 0; pass < 2; pass++) {
+            System.out.println(pass == 0 ? "Warm up" : "Measure");
+            run("vanilla", new VanillaStorage(), chunks, chunk, threads);
+            run("mapped", new MappedStorage(new MappedRegionCache(cacheSize), ChunkCodecs.deflate(ChunkCodecs.DEFAULT_LEVEL)), chunks, chunk,
+                    threads);
+            run("mapped lz", new MappedStorage(new MappedRegionCache(cacheSize), ChunkCodecs.LZ), chunks, chunk, threads);
+        }
+    }
+
+    private static void run(String name, final Storage storage, List<int[]> chunks, byte[] chunk, int threads) throws Exception {
+        File directory = createDirectory();
+        try {
+            long start = System.nanoTime();
+            for (int[] pos : chunks) {
+                DataOutputStream out = storage.getOutputStream(directory, pos[0], pos[1]);
+                out.write(chunk);
+                out.close();
+            }
+            long writeNanos = System.nanoTime() - start;
+            storage.clear();
+
+            start = System.nanoTime();
+            readAll(storage, directory, chunks, chunk.length, 1);
+            long readNanos = System.nanoTime() - start;
+            storage.clear();
+
+            start = System.nanoTime();
+            readAll(storage, directory, chunks, chunk.length, threads);
+            long parallelNanos = System.nanoTime() - start;
+            storage.clear();
+
+            System.out.println(String.format("  %-10s write: %7.1fus, read: %7.1fus, parallel read: %7.1fus per chunk", name,
+                    writeNanos / 1000.0D / chunks.size(), readNanos / 1000.0D / chunks.size(), parallelNanos / 1000.0D / chunks.size()));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static void readAll(final Storage storage, final File directory, final List<int[]> chunks, final int length, final int threads)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int t = 0; t < threads; t++) {
+                final int first = t;
+                futures.add(executor.submit(new Callable<Void>() {
+
+                    @Override
+                    public Void call() throws Exception {
+                        byte[] data = new byte[length];
+                        for (int i = first; i < chunks.size(); i += threads) {
+                            int[] pos = chunks.get(i);
+                            DataInputStream in = storage.getInputStream(directory, pos[0], pos[1]);
+                            if (in == null) {
+                                throw new IllegalStateException("Chunk " + pos[0] + ", " + pos[1] + " was not written");
+                            }
+                            in.readFully(data);
+                            in.close();
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // Compresses about as well as chunk NBT, mostly runs of the same bytes
+    private static byte[] createChunk() {
+        Random random = new Random(0);
+        byte[] chunk = new byte[CHUNK_BYTES];
+        int i = 0;
+        while (i < chunk.length) {
+            int run = Math.min(chunk.length - i, 1 + random.nextInt(64));
+            byte value = (byte) random.nextInt(16);
+            for (int j = 0; j < run; j++) {
+                chunk[i++] = value;
+            }
+        }
+        return chunk;
+    }
+
+    private static File createDirectory() throws IOException {
+        File directory = File.createTempFile("sponge-region-benchmark", "");
+        if (!directory.delete() || !directory.mkdir()) {
+            throw new IOException("Could not create " + directory);
+        }
+        return directory;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private interface Storage {
+
+        DataOutputStream getOutputStream(File directory, int x, int z) throws IOException;
+
+        DataInputStream getInputStream(File directory, int x, int z) throws IOException;
+
+        void clear();
+    }
+
+    private static class VanillaStorage implements Storage {
+
+        @Override
+        public DataOutputStream getOutputStream(File directory, int x, int z) {
+            return RegionFileCache.getChunkOutputStream(directory, x, z);
+        }
+
+        @Override
+        public DataInputStream getInputStream(File directory, int x, int z) {
+            return RegionFileCache.getChunkInputStream(directory, x, z);
+        }
+
+        @Override
+        public void clear() {
+            RegionFileCache.clearRegionFileReferences();
+        }
+    }
+
+    private static class MappedStorage implements Storage {
+
+        private final MappedRegionCache cache;
+        private final ChunkCodec codec;
+
+        MappedStorage(MappedRegionCache cache, ChunkCodec codec) {
+            this.cache = cache;
+            this.codec = codec;
+        }
+
+        @Override
+        public DataOutputStream getOutputStream(File directory, int x, int z) throws IOException {
+            return this.cache.getChunkOutputStream(directory, x, z, this.codec);
+        }
+
+        @Override
+        public DataInputStream getInputStream(File directory, int x, int z) throws IOException {
+            return this.cache.getChunkInputStream(directory, x, z);
+        }
+
+        @Override
+        public void clear() {
+            this.cache.clear();
+        }
+    }
+
+}
@@ -0,0 +1,235 @@
+/*
+ * This file is part of Sponge, licensed under the MIT License (MIT).
+ *
+ * Copyright (c) SpongePowered <https://www.spongepowered.org>
+ * Copyright (c) contributors
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.spongepowered.mod.world.storage.compression;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+public class LzCodecTest {
+
+    @Test
+    public void testEmptyBlock() throws IOException {
+        assertBlockRoundTrip(new byte[0]);
+    }
+
+    @Test
+    public void testEmptyStream() throws IOException {
+        byte[] compressed = compress(new byte[0]);
+        assertEquals(0, compressed.length);
+        assertArrayEquals(new byte[0], decompress(compressed));
+    }
+
+    @Test
+    public void testIncompressibleInputIsStored() throws IOException {
+        byte[] data = random(new Random(1), 1000);
+        byte[] compressed = compress(data);
+        // Decompressed length, then a compressed length of 0 for a stored block
+        assertEquals(8 + data.length, compressed.length);
+        assertEquals(0, compressed[4] | compressed[5] | compressed[6] | compressed[7]);
+        assertArrayEquals(data, decompress(compressed));
+        assertBlockRoundTrip(data);
+    }
+
+    @Test
+    public void testShortInputs() throws IOException {
+        for (int length = 1; length < 20; length++) {
+            byte[] data = new byte[length];
+            Arrays.fill(data, (byte) 7);
+            assertBlockRoundTrip(data);
+        }
+    }
+
+    @Test
+    public void testLongLiteralAndMatchRuns() throws IOException {
+        Random random = new Random(2);
+        // Literal and match lengths around the 15 nibble and 255 byte continuations
+        for (int length : new int[] {14, 15, 16, 15 + 254, 15 + 255, 15 + 256, 15 + 255 * 3, 5000}) {
+            byte[] data = new byte[length * 2];
+            System.arraycopy(random(random, length), 0, data, 0, length);
+            assertBlockRoundTrip(data);
+        }
+    }
+
+    @Test
+    public void testOverlappingMatches() throws IOException {
+        // Matches with offsets of 1 and 3 which are longer than their offset
+        byte[] data = new byte[3000];
+        Arrays.fill(data, 0, 1000, (byte) 1);
+        for (int i = 1000; i < data.length; i++) {
+            data[i] = (byte) "abc".charAt(i % 3);
+        }
+        byte[] compressed = new byte[LzBlock.maxCompressedLength(data.length)];
+        int length = LzBlock.compress(data, data.length, compressed, LzBlock.createTable());
+        assertTrue(length < 100);
+        byte[] decompressed = new byte[data.length];
+        LzBlock.decompress(compressed, length, decompressed, data.length);
+        assertArrayEquals(data, decompressed);
+    }
+
+    @Test
+    public void testMultipleBlocks() throws IOException {
+        Random random = new Random(3);
+        byte[] data = new byte[LzBlock.BLOCK_SIZE * 3 + 1234];
+        for (int i = 0; i < data.length; i += 64) {
+            // Runs of repeated and random bytes so blocks are both compressed and stored
+            if (random.nextBoolean() || i > LzBlock.BLOCK_SIZE && i < LzBlock.BLOCK_SIZE * 2) {
+                System.arraycopy(random(random, 64), 0, data, i, Math.min(64, data.length - i));
+            } else {
+                Arrays.fill(data, i, Math.min(i + 64, data.length), (byte) i);
+            }
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        OutputStream out = new LzOutputStream(buffer);
+        // Uneven writes crossing the block boundaries
+        for (int i = 0; i < data.length;) {
+            int n = Math.min(data.length - i, 1 + random.nextInt(30000));
+            out.write(data, i, n);
+            i += n;
+        }
+        out.close();
+        assertArrayEquals(data, decompress(buffer.toByteArray()));
+
+        InputStream in = new LzInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+        for (byte b : data) {
+            assertEquals(b & 255, in.read());
+        }
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void testTruncatedStream() throws IOException {
+        byte[] data = new byte[LzBlock.BLOCK_SIZE * 2];
+        Arrays.fill(data, (byte) 5);
+        byte[] compressed = compress(data);
+        for (int length : new int[] {2, 6, 9, compressed.length - 1}) {
+            try {
+                decompress(Arrays.copyOf(compressed, length));
+                fail("Truncated to " + length + " bytes");
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testTruncatedBlock() throws IOException {
+        byte[] data = random(new Random(4), 100);
+        System.arraycopy(data, 0, data, 50, 50);
+        byte[] compressed = new byte[LzBlock.maxCompressedLength(data.length)];
+        int length = LzBlock.compress(data, data.length, compressed, LzBlock.createTable());
+        for (int i = 0; i < length; i++) {
+            try {
+                LzBlock.decompress(compressed, i, new byte[data.length], data.length);
+                fail("Truncated to " + i + " bytes");
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testCorruptBlock() {
+        assertCorrupt(new byte[] {0x00, 0x01, 0x00}, 10); // Match before the start of the block
+        assertCorrupt(new byte[] {0x10, 0x01, 0x00, 0x00}, 10); // Match offset of 0
+        assertCorrupt(new byte[] {0x2f, 0x01, 0x02, 0x02, 0x00, 0x0a}, 10); // Match past the end of the block
+        assertCorrupt(new byte[] {0x20, 0x01, 0x02, 0x00}, 2); // Trailing bytes
+    }
+
+    @Test
+    public void testCorruptStreamHeader() {
+        for (int[] header : new int[][] {{0, 0}, {LzBlock.BLOCK_SIZE + 1, 0}, {100, 100}, {100, -1}}) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            writeInt(buffer, header[0]);
+            writeInt(buffer, header[1]);
+            buffer.write(new byte[200], 0, 200);
+            try {
+                decompress(buffer.toByteArray());
+                fail("Header " + header[0] + ", " + header[1]);
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    private static void assertBlockRoundTrip(byte[] data) throws IOException {
+        byte[] compressed = new byte[LzBlock.maxCompressedLength(data.length)];
+        int length = LzBlock.compress(data, data.length, compressed, LzBlock.createTable());
+        byte[] decompressed = new byte[data.length];
+        LzBlock.decompress(compressed, length, decompressed, data.length);
+        assertArrayEquals(data, decompressed);
+        assertArrayEquals(data, decompress(compress(data)));
+    }
+
+    private static void assertCorrupt(byte[] block, int length) {
+        try {
+            LzBlock.decompress(block, block.length, new byte[length], length);
+            fail("Decompressed " + Arrays.toString(block));
+        } catch (IOException expected) {
+        }
+    }
+
+    private static byte[] compress(byte[] data) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        OutputStream out = new LzOutputStream(buffer);
+        out.write(data);
+        out.close();
+        return buffer.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] data) throws IOException {
+        InputStream in = new LzInputStream(new ByteArrayInputStream(data));
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[4096];
+        int n;
+        while ((n = in.read(chunk)) >= 0) {
+            buffer.write(chunk, 0, n);
+        }
+        in.close();
+        return buffer.toByteArray();
+    }
+
+    private static byte[] random(Random random, int length) {
+        byte[] data = new byte[length];
+        random.nextBytes(data);
+        return data;
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+}